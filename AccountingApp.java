@@ -1,31 +1,69 @@
+import accounting.Account;
+import accounting.AccountType;
+import accounting.Dates;
+import accounting.JournalTableModel;
+import accounting.LedgerEngine;
+import accounting.LedgerServer;
+import accounting.LedgerTableModel;
+import accounting.Money;
+import accounting.MoneyCellRenderer;
+import accounting.SubstringIndex;
+import accounting.TransactionsTableModel;
+import accounting.TrialBalance;
+
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /*
 AccountingApp.java
- - Refreshes all views after changes
+ - Refreshes all views after account changes; postings patch only the affected rows
  - Fixed general ledger running balance logic
  - Uses Owner's Equity (ASCII apostrophe) consistently
  - Defensive null checks and input validation
- - Keeps in-memory storage, uses JTable and JTabbedPane
- Note: For production money calculations use BigDecimal.
+ - The book (posting rules, journal, balances, reports) is an accounting.LedgerEngine; this frame
+   shows it and forwards what the user enters
+ - Keeps the book in memory and appends every change to an on-disk journal replayed at startup
+ - Periodic balance snapshots mean startup only re-derives balances for the journal tail
+ - Postings run on a single ledger-writer thread; views catch up in batches on the EDT
+ - Transaction search runs as you type, off the EDT, with results streamed into the table in pages
+ - The search index is built on the search thread after the window opens; until it catches up,
+   searches check the postings it has not reached directly
+ - Trial balance and income statement for any period, summed in parallel on the ForkJoin pool
+ - Uses JTable and JTabbedPane
+ - Money is held as long cents (accounting.Money), so totals never drift
+ - The Accounts table and Balance Sheet take each refresh's balances from one engine.balances() (or
+   balancesAsOf()) read, so rows and totals agree while other threads post
+ - Postings live in a columnar TransactionStore; Transaction is a view of one row
+ - The tables (accounting.TransactionsTableModel, JournalTableModel, LedgerTableModel) read their
+   rows off the engine's date indexes a page at a time; the frame keeps no copy of the book
+ - -Daccounting.offHeapStore=true keeps that store in direct memory, outside the GC heap; the engine's
+   date indexes stay on it (about 60 bytes a posting)
+ - The search index is the largest per-posting cost on the heap (about 500 bytes a posting);
+   -Daccounting.searchIndex=false goes without it, and searches scan from the newest posting down
+ - -Daccounting.http.port=n also serves the book to other systems on localhost (accounting.LedgerServer);
+   what they post shows up here like the user's own postings
 */
 
 public class AccountingApp extends JFrame {
-    private List<Account> accounts;
-    private List<Transaction> transactions;
-    private SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+    // The book itself; this frame only shows it and hands it what the user enters.
+    private LedgerEngine engine;
+    // The HTTP API over the same book, when -Daccounting.http.port asks for it; null otherwise.
+    private LedgerServer apiServer;
 
-    private DefaultTableModel transactionsTableModel;
+    private TransactionsTableModel transactionsTableModel;
     private DefaultTableModel accountsTableModel;
-    private DefaultTableModel journalTableModel;
-    private DefaultTableModel ledgerTableModel;
+    private JournalTableModel journalTableModel;
+    private LedgerTableModel ledgerTableModel;
     private DefaultTableModel assetsTableModel;
     private DefaultTableModel liabilitiesTableModel;
 
@@ -33,11 +71,52 @@ public class AccountingApp extends JFrame {
     private JComboBox<String> debitComboGlobal;
     private JComboBox<String> creditComboGlobal;
 
+    private final List<TransactionListener> transactionListeners = new ArrayList<>();
+
+    // Amount columns hold Long cents and are drawn by these; reports group thousands, registers don't.
+    private final MoneyCellRenderer amountRenderer = new MoneyCellRenderer(false);
+    private final MoneyCellRenderer reportAmountRenderer = new MoneyCellRenderer(true);
+
+    // Search index over the postings the views have been told of; document ids are Transaction.seq.
+    // Built and extended only on the search thread, so the window opens without waiting for it.
+    private final SubstringIndex searchIndex = new SubstringIndex();
+    // Postings the views have been told of, rows 0 to postingsSeen - 1. Written on the EDT only.
+    private volatile int postingsSeen;
+    private final AtomicBoolean indexing = new AtomicBoolean();
+    // Postings indexed per task, so a search typed meanwhile waits for one chunk at most.
+    private static final int INDEX_CHUNK = 8192;
+    private final boolean useSearchIndex = Boolean.parseBoolean(System.getProperty("accounting.searchIndex", "true"));
+
+    // Typing restarts a short timer; the query itself runs here, and a newer one cancels it.
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "transaction-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> runningSearch; // EDT only
+    private static final int SEARCH_DEBOUNCE_MS = 150;
+    // The first page is sized to show at once; later pages double up to the cap.
+    private static final int SEARCH_FIRST_PAGE = 200;
+    private static final int SEARCH_MAX_PAGE = 16_384;
+
+    private final Queue<Transaction> unpublished = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean publishScheduled = new AtomicBoolean();
+    // Past this many postings per batch one full refresh beats row-by-row patching.
+    private static final int MAX_INCREMENTAL_BATCH = 64;
+    private final Map<Account, Integer> balanceSheetRows = new HashMap<>();
+    // Day the Balance Sheet is drawn as of; null shows current balances. EDT only.
+    private Integer balanceSheetAsOf; // epoch day
+
     public AccountingApp() {
-        sdf.setLenient(false);
-        accounts = new ArrayList<>();
-        transactions = new ArrayList<>();
-        addPredefinedAccounts();
+        openEngine();
+        postingsSeen = engine.size();
+        // Postings reach the views from the thread that posted them, batched onto the EDT.
+        engine.addListener((from, to) -> {
+            List<Transaction> txs = new ArrayList<>(to - from);
+            for (int seq = from; seq < to; seq++) txs.add(new Transaction(seq));
+            publishAll(txs);
+        });
+        startApiServer();
 
         JTabbedPane tabbedPane = new JTabbedPane();
 
@@ -47,107 +126,80 @@ public class AccountingApp extends JFrame {
         tabbedPane.addTab("General Journal", createGeneralJournalPanel());
         tabbedPane.addTab("General Ledger", createGeneralLedgerPanel());
         tabbedPane.addTab("Balance Sheet", createBalanceSheetPanel());
+        tabbedPane.addTab("Trial Balance / Income Statement", createTrialBalancePanel());
 
         add(tabbedPane);
         setTitle("Accounting App");
         setSize(1000, 650);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                searchExecutor.shutdownNow();
+                if (apiServer != null) apiServer.close();
+                // Let postings already accepted reach the journal before the JVM exits.
+                engine.close();
+            }
+        });
         setLocationRelativeTo(null);
         setVisible(true);
 
         refreshAllViews();
+        scheduleIndexing();
     }
 
-    private static class Account {
-        private String name;
-        private String type;
-        private double balance;
+    /** Notified once per posted transaction so each view can patch only its affected rows. */
+    private interface TransactionListener {
+        void transactionPosted(Transaction tx);
+    }
 
-        public Account(String name, String type, double initialBalance) {
-            this.name = name;
-            this.type = type;
-            this.balance = initialBalance;
-        }
-        public String getName() { return name; }
-        public String getType() { return type; }
-        public double getBalance() { return balance; }
+    /** One row of the store; the fields are read from its columns on demand. */
+    private final class Transaction {
+        private final int seq; // order of entry, and the row in the store
+
+        Transaction(int seq) { this.seq = seq; }
+
+        public int getSeq() { return seq; }
+        public int getEpochDay() { return engine.epochDay(seq); }
+        public String getDateText() { return Dates.format(getEpochDay()); }
+        public String getDescription() { return engine.description(seq); }
+        public int getDebitId() { return engine.debitId(seq); }
+        public int getCreditId() { return engine.creditId(seq); }
+        public String getDebitAccount() { return engine.account(getDebitId()).getName(); }
+        public String getCreditAccount() { return engine.account(getCreditId()).getName(); }
+        public long getAmount() { return engine.amount(seq); }
+    }
 
-        public void applyDebit(double amount) {
-            if (type.equals("Asset") || type.equals("Expense")) {
-                balance += amount;
-            } else {
-                balance -= amount;
-            }
+    // The order the Transactions table shows matches in: newest date first, then newest entry.
+    private final Comparator<Transaction> newestFirst =
+            (a, b) -> TransactionsTableModel.compareNewestFirst(engine, a.getSeq(), b.getSeq());
+
+    // Opens the book in the data directory; if that fails, works in memory for this session.
+    private void openEngine() {
+        try {
+            engine = LedgerEngine.open(LedgerEngine.defaultDir());
+        } catch (IOException ex) {
+            engine = LedgerEngine.inMemory();
+            JOptionPane.showMessageDialog(null, "Could not open the journal in " + LedgerEngine.defaultDir()
+                    + ". Changes will not be saved.\n" + ex.getMessage());
+            return;
         }
-        public void applyCredit(double amount) {
-            if (type.equals("Liability") || type.equals("Owner's Equity") || type.equals("Revenue")) {
-                balance += amount;
-            } else {
-                balance -= amount;
-            }
+        if (engine.getSnapshotMismatch() != null) {
+            JOptionPane.showMessageDialog(null, "Balance snapshot did not match the journal:\n" + engine.getSnapshotMismatch());
         }
     }
 
-    private static class Transaction {
-        private Date date;
-        private String description;
-        private String debitAccount;
-        private String creditAccount;
-        private double amount;
-
-        public Transaction(Date date, String description, String debitAccount, String creditAccount, double amount) {
-            this.date = date;
-            this.description = description;
-            this.debitAccount = debitAccount;
-            this.creditAccount = creditAccount;
-            this.amount = amount;
-        }
-
-        public Date getDate() { return date; }
-        public String getDescription() { return description; }
-        public String getDebitAccount() { return debitAccount; }
-        public String getCreditAccount() { return creditAccount; }
-        public double getAmount() { return amount; }
-    }
-
-
-    private void addPredefinedAccounts() {
-        String[][] predefined = {
-            {"Cash", "Asset"},
-            {"Accounts Receivable", "Asset"},
-            {"Inventory", "Asset"},
-            {"Supplies", "Asset"},
-            {"Prepaid Expenses", "Asset"},
-            {"Equipment", "Asset"},
-            {"Furniture and Fixtures", "Asset"},
-            {"Land", "Asset"},
-            {"Buildings", "Asset"},
-            {"Accounts Payable", "Liability"},
-            {"Notes Payable", "Liability"},
-            {"Salaries Payable", "Liability"},
-            {"Rent Payable", "Liability"},
-            {"Interest Payable", "Liability"},
-            {"Unearned Revenue", "Liability"},
-            {"Owner's Capital", "Owner's Equity"},
-            {"Owner's Drawing", "Owner's Equity"},
-            {"Service Revenue", "Revenue"},
-            {"Sales Revenue", "Revenue"},
-            {"Interest Income", "Revenue"},
-            {"Salaries Expense", "Expense"},
-            {"Rent Expense", "Expense"},
-            {"Utilities Expense", "Expense"},
-            {"Supplies Expense", "Expense"},
-            {"Depreciation Expense", "Expense"},
-            {"Insurance Expense", "Expense"},
-            {"Advertising Expense", "Expense"}
-        };
-
-        for (String[] acc : predefined) {
-            accounts.add(new Account(acc[0], acc[1], 0.0));
+    private void startApiServer() {
+        Integer port = Integer.getInteger("accounting.http.port");
+        if (port == null) return;
+        try {
+            apiServer = new LedgerServer(engine, port);
+            apiServer.start();
+        } catch (IOException ex) {
+            apiServer = null;
+            JOptionPane.showMessageDialog(null, "Could not start the HTTP API on port " + port + ".\n" + ex.getMessage());
         }
     }
 
-
     private JPanel createAddTransactionPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         JPanel form = new JPanel(new GridBagLayout());
@@ -156,7 +208,7 @@ public class AccountingApp extends JFrame {
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.weightx = 1.0;
 
-        JTextField dateField = new JTextField(sdf.format(new Date()));
+        JTextField dateField = new JTextField(Dates.format(Dates.today()));
         JTextField descField = new JTextField();
         debitComboGlobal = new JComboBox<>();
         creditComboGlobal = new JComboBox<>();
@@ -166,6 +218,7 @@ public class AccountingApp extends JFrame {
 
         JButton postBtn = new JButton("Post Transaction");
         JButton clearBtn = new JButton("Clear Fields");
+        JButton importBtn = new JButton("Import CSV...");
 
         gbc.gridx = 0; gbc.gridy = 0; form.add(new JLabel("Date (YYYY-MM-DD):"), gbc);
         gbc.gridx = 1; form.add(dateField, gbc);
@@ -185,69 +238,56 @@ public class AccountingApp extends JFrame {
         gbc.gridx = 0; gbc.gridy = 5; form.add(postBtn, gbc);
         gbc.gridx = 1; form.add(clearBtn, gbc);
 
+        gbc.gridx = 1; gbc.gridy = 6; form.add(importBtn, gbc);
+
         panel.add(form, BorderLayout.NORTH);
 
         postBtn.addActionListener(e -> {
-            String dateStr = dateField.getText().trim();
-            String desc = descField.getText().trim();
-            String debitAccName = (String) debitComboGlobal.getSelectedItem();
-            String creditAccName = (String) creditComboGlobal.getSelectedItem();
-            String amtStr = amountField.getText().trim();
-
-
-            Date date;
-            try {
-                date = sdf.parse(dateStr);
-            } catch (ParseException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
-                return;
-            }
-
-            double amount;
-            try {
-                amount = Double.parseDouble(amtStr);
-                if (amount <= 0) throw new NumberFormatException();
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Amount must be a number greater than zero.");
-                return;
-            }
-
-            if (debitAccName == null || creditAccName == null) {
-                JOptionPane.showMessageDialog(this, "Select both debit and credit accounts.");
-                return;
-            }
-            if (debitAccName.equals(creditAccName)) {
-                JOptionPane.showMessageDialog(this, "Debit and credit accounts cannot be the same.");
-                return;
-            }
-
-            Account debitAcc = getAccountByName(debitAccName);
-            Account creditAcc = getAccountByName(creditAccName);
-            if (debitAcc == null || creditAcc == null) {
-                JOptionPane.showMessageDialog(this, "Selected account not found.");
-                return;
-            }
-
-            debitAcc.applyDebit(amount);
-            creditAcc.applyCredit(amount);
-
-            Transaction tx = new Transaction(date, desc, debitAccName, creditAccName, amount);
-            transactions.add(tx);
-
-            transactions.sort(Comparator.comparing(Transaction::getDate));
-
-            refreshAllViews();
+            LedgerEngine.PostingRequest req = new LedgerEngine.PostingRequest(dateField.getText().trim(),
+                    descField.getText().trim(), (String) debitComboGlobal.getSelectedItem(),
+                    (String) creditComboGlobal.getSelectedItem(), amountField.getText().trim());
+            engine.post(req).whenComplete((seq, err) -> SwingUtilities.invokeLater(() -> {
+                if (err != null) {
+                    JOptionPane.showMessageDialog(this, err.getMessage());
+                    return;
+                }
+                JOptionPane.showMessageDialog(this, "Transaction posted.");
+                dateField.setText(Dates.format(Dates.today()));
+                descField.setText("");
+                amountField.setText("");
+                debitComboGlobal.setSelectedIndex(0);
+                creditComboGlobal.setSelectedIndex(0);
+            }));
+        });
 
-            JOptionPane.showMessageDialog(this, "Transaction posted.");
-            dateField.setText(sdf.format(new Date()));
-            descField.setText("");
-            amountField.setText("");
-            debitComboGlobal.setSelectedIndex(0);
-            creditComboGlobal.setSelectedIndex(0);
+        importBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Import transactions (date, description, debit, credit, amount)");
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = chooser.getSelectedFile().toPath();
+            importBtn.setEnabled(false);
+            importBtn.setText("Importing...");
+            engine.importCsv(file).whenComplete((report, err) -> SwingUtilities.invokeLater(() -> {
+                importBtn.setEnabled(true);
+                importBtn.setText("Import CSV...");
+                if (err != null) {
+                    JOptionPane.showMessageDialog(this, err.getMessage());
+                    return;
+                }
+                StringBuilder msg = new StringBuilder("Imported " + report.getPosted() + " transactions.");
+                if (report.getRejected() > 0) {
+                    msg.append("\n").append(report.getRejected()).append(" rows were rejected");
+                    if (report.getErrorFile() != null) msg.append(" (full list in ").append(report.getErrorFile()).append(")");
+                    msg.append(":");
+                    for (String line : report.getFirstErrors()) msg.append("\n").append(line);
+                    if (report.getRejected() > report.getFirstErrors().size()) msg.append("\n...");
+                }
+                JOptionPane.showMessageDialog(this, msg.toString());
+            }));
         });
 
         clearBtn.addActionListener(e -> {
-            dateField.setText(sdf.format(new Date()));
+            dateField.setText(Dates.format(Dates.today()));
             descField.setText("");
             amountField.setText("");
             if (debitComboGlobal.getItemCount() > 0) debitComboGlobal.setSelectedIndex(0);
@@ -266,54 +306,128 @@ public class AccountingApp extends JFrame {
         top.add(searchField);
         top.add(searchBtn);
 
-        String[] columns = {"Date", "Description", "Debit Account", "Credit Account", "Amount"};
-        transactionsTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
+        transactionsTableModel = new TransactionsTableModel(engine);
         JTable table = new JTable(transactionsTableModel);
+        table.setDefaultRenderer(Long.class, amountRenderer);
         table.setAutoCreateRowSorter(true);
 
-        searchBtn.addActionListener(e -> {
+        javax.swing.Timer debounce = new javax.swing.Timer(SEARCH_DEBOUNCE_MS, e -> {
             String query = searchField.getText().trim().toLowerCase();
-            filterTransactions(query);
+            if (!query.equals(transactionsTableModel.getQuery())) filterTransactions(query);
         });
+        debounce.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { debounce.restart(); }
+            public void removeUpdate(DocumentEvent e) { debounce.restart(); }
+            public void changedUpdate(DocumentEvent e) {}
+        });
+
+        ActionListener searchNow = e -> {
+            debounce.stop();
+            filterTransactions(searchField.getText().trim().toLowerCase());
+        };
+        searchBtn.addActionListener(searchNow);
+        searchField.addActionListener(searchNow);
 
-        searchField.addActionListener(e -> filterTransactions(searchField.getText().trim().toLowerCase()));
+        transactionListeners.add(tx -> transactionsTableModel.transactionPosted(tx.getSeq()));
 
         panel.add(top, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         return panel;
     }
 
+    // EDT: clears the table and starts the query in the background, cancelling the one before it.
     private void filterTransactions(String query) {
-        transactionsTableModel.setRowCount(0);
-        for (int i = transactions.size()-1; i >= 0; i--) {
-            Transaction tx = transactions.get(i);
-            String dateStr = sdf.format(tx.getDate());
-            if (query.isEmpty()
-                    || dateStr.contains(query)
-                    || tx.getDescription().toLowerCase().contains(query)
-                    || tx.getDebitAccount().toLowerCase().contains(query)
-                    || tx.getCreditAccount().toLowerCase().contains(query)) {
-                transactionsTableModel.addRow(new Object[]{
-                        dateStr,
-                        tx.getDescription(),
-                        tx.getDebitAccount(),
-                        tx.getCreditAccount(),
-                        String.format(Locale.US, "%.2f", tx.getAmount())
-                });
+        if (runningSearch != null) runningSearch.cancel(true);
+        runningSearch = null;
+        int gen = transactionsTableModel.startQuery(query);
+        if (query.isEmpty()) return;
+        // Later postings reach the table through transactionPosted, not through this search.
+        int limit = postingsSeen;
+        runningSearch = searchExecutor.submit(() -> runSearch(query, limit, gen));
+    }
+
+    /*
+     Search thread: walks the postings from the newest seq down and hands each page of hits to the
+     table as soon as it is verified, so the first page shows without scanning the whole match set.
+     Postings the index has not reached yet (while it is built after startup, or all of them without
+     one) come first, as they are the newest, and are checked directly; the index's candidates follow.
+    */
+    private void runSearch(String query, int limit, int gen) {
+        int indexed = Math.min(limit, searchIndex.size());
+        int[] ids = searchIndex.candidates(query);
+        int next = ids.length;
+        while (next > 0 && ids[next - 1] >= indexed) next--;
+        // Up to three characters the index answers exactly; longer queries it only narrows down.
+        boolean exact = query.length() <= 3;
+
+        List<Transaction> shown = new ArrayList<>();
+        List<Transaction> late = new ArrayList<>();
+        List<Transaction> page = new ArrayList<>();
+        int pageSize = SEARCH_FIRST_PAGE;
+        int seq = limit;
+        for (int steps = 1; ; steps++) {
+            if (seq > indexed) seq--;
+            else if (next > 0) seq = ids[--next];
+            else break;
+            if ((steps & 4095) == 0 && Thread.currentThread().isInterrupted()) return;
+            Transaction tx = new Transaction(seq);
+            if ((seq < indexed && exact) || TransactionsTableModel.matches(engine, seq, query)) page.add(tx);
+            if (page.size() == pageSize) {
+                sendPage(gen, page, shown, late);
+                page = new ArrayList<>();
+                pageSize = Math.min(pageSize * 2, SEARCH_MAX_PAGE);
             }
         }
+        sendPage(gen, page, shown, late);
+
+        if (!late.isEmpty()) {
+            // Back-dated hits: one merge here, and the table takes the whole list at once.
+            late.sort(newestFirst);
+            List<Transaction> all = new ArrayList<>(shown.size() + late.size());
+            int i = 0, j = 0;
+            while (i < shown.size() || j < late.size()) {
+                if (j == late.size() || (i < shown.size() && newestFirst.compare(shown.get(i), late.get(j)) < 0)) {
+                    all.add(shown.get(i++));
+                } else {
+                    all.add(late.get(j++));
+                }
+            }
+            SwingUtilities.invokeLater(() -> transactionsTableModel.replaceMatches(gen, seqs(all)));
+        }
+        SwingUtilities.invokeLater(() -> transactionsTableModel.finishQuery(gen));
+    }
+
+    /*
+     Pages are found in seq order and shown in date order. A page that sorts wholly below what the
+     table already has is appended at once; once one doesn't, it and the rest wait for the merge.
+    */
+    private void sendPage(int gen, List<Transaction> page, List<Transaction> shown, List<Transaction> late) {
+        if (page.isEmpty()) return;
+        page.sort(newestFirst);
+        if (!late.isEmpty() || (!shown.isEmpty() && newestFirst.compare(shown.get(shown.size()-1), page.get(0)) > 0)) {
+            late.addAll(page);
+            return;
+        }
+        shown.addAll(page);
+        SwingUtilities.invokeLater(() -> transactionsTableModel.appendPage(gen, seqs(page)));
     }
 
+    private static int[] seqs(List<Transaction> txs) {
+        int[] seqs = new int[txs.size()];
+        for (int i = 0; i < seqs.length; i++) seqs[i] = txs.get(i).getSeq();
+        return seqs;
+    }
 
     private JPanel createAccountsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         String[] columns = {"Account Name", "Type", "Current Balance"};
         accountsTableModel = new DefaultTableModel(columns, 0) {
             public boolean isCellEditable(int r,int c){ return false; }
+            public Class<?> getColumnClass(int c){ return c == 2 ? Long.class : Object.class; }
         };
         JTable table = new JTable(accountsTableModel);
+        table.setDefaultRenderer(Long.class, amountRenderer);
         table.setAutoCreateRowSorter(true);
 
         JPanel addPanel = new JPanel(new GridBagLayout());
@@ -323,7 +437,7 @@ public class AccountingApp extends JFrame {
         gbc.weightx = 1.0;
 
         JTextField nameField = new JTextField();
-        JComboBox<String> typeCombo = new JComboBox<>(new String[]{"Asset", "Liability", "Owner's Equity", "Revenue", "Expense"});
+        JComboBox<AccountType> typeCombo = new JComboBox<>(AccountType.values());
         JTextField balanceField = new JTextField();
         JButton addBtn = new JButton("Add Account");
 
@@ -342,26 +456,33 @@ public class AccountingApp extends JFrame {
                 JOptionPane.showMessageDialog(this, "Enter account name.");
                 return;
             }
-            if (getAccountByName(name) != null) {
-                JOptionPane.showMessageDialog(this, "An account with this name already exists.");
-                return;
-            }
-            String type = (String) typeCombo.getSelectedItem();
-            double initBal = 0.0;
+            AccountType type = (AccountType) typeCombo.getSelectedItem();
+            long initBal = 0;
             if (!balanceField.getText().trim().isEmpty()) {
                 try {
-                    initBal = Double.parseDouble(balanceField.getText().trim());
+                    initBal = Money.parse(balanceField.getText().trim());
                 } catch (NumberFormatException ex) {
-                    JOptionPane.showMessageDialog(this, "Invalid initial balance. Use a number.");
+                    JOptionPane.showMessageDialog(this, "Invalid initial balance. Enter a number such as 1250.00.");
                     return;
                 }
             }
-            accounts.add(new Account(name, type, initBal));
-            refreshAllViews();
-            nameField.setText("");
-            balanceField.setText("");
-            typeCombo.setSelectedIndex(0);
-            JOptionPane.showMessageDialog(this, "Account added.");
+            engine.addAccount(name, type, initBal).whenComplete((a, err) -> SwingUtilities.invokeLater(() -> {
+                if (err != null) {
+                    JOptionPane.showMessageDialog(this, err.getMessage());
+                    return;
+                }
+                refreshAllViews();
+                nameField.setText("");
+                balanceField.setText("");
+                typeCombo.setSelectedIndex(0);
+                JOptionPane.showMessageDialog(this, "Account added.");
+            }));
+        });
+
+        transactionListeners.add(tx -> {
+            long[] balances = engine.balances();
+            updateAccountRow(getAccountByName(tx.getDebitAccount()), balances);
+            updateAccountRow(getAccountByName(tx.getCreditAccount()), balances);
         });
 
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
@@ -372,12 +493,11 @@ public class AccountingApp extends JFrame {
 
     private JPanel createGeneralJournalPanel() {
         JPanel panel = new JPanel(new BorderLayout());
-        String[] cols = {"Date", "Description", "Account", "Debit", "Credit"};
-        journalTableModel = new DefaultTableModel(cols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
+        journalTableModel = new JournalTableModel(engine);
         JTable table = new JTable(journalTableModel);
+        table.setDefaultRenderer(Long.class, amountRenderer);
         table.setAutoCreateRowSorter(true);
+        transactionListeners.add(tx -> journalTableModel.transactionPosted(tx.getSeq()));
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         return panel;
     }
@@ -391,18 +511,22 @@ public class AccountingApp extends JFrame {
         top.add(new JLabel("Select Account:"));
         top.add(ledgerAccountCombo);
 
-        String[] cols = {"Date", "Description", "Debit Account", "Credit Account", "Amount", "Running Balance"};
-        ledgerTableModel = new DefaultTableModel(cols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
+        ledgerTableModel = new LedgerTableModel(engine);
         JTable table = new JTable(ledgerTableModel);
+        table.setDefaultRenderer(Long.class, amountRenderer);
         table.setAutoCreateRowSorter(true);
 
         ledgerAccountCombo.addActionListener(e -> {
             String acc = (String) ledgerAccountCombo.getSelectedItem();
-            if (acc != null) updateGeneralLedgerTable(acc);
+            if (acc == null) return;
+            updateGeneralLedgerTable(acc);
+            // Open on the latest postings; rows above are only computed if scrolled to.
+            int last = table.getRowCount() - 1;
+            if (last >= 0) table.scrollRectToVisible(table.getCellRect(last, 0, true));
         });
 
+        transactionListeners.add(tx -> ledgerTableModel.transactionPosted(tx.getSeq()));
+
         panel.add(top, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         return panel;
@@ -410,51 +534,32 @@ public class AccountingApp extends JFrame {
 
 
     private void updateGeneralLedgerTable(String accountName) {
-        ledgerTableModel.setRowCount(0);
-        Account acc = getAccountByName(accountName);
-        if (acc == null) return;
-
-        double running = 0.0;
-        for (Transaction tx : transactions) {
-            boolean affected = false;
-            double amount = tx.getAmount();
-            String dateStr = sdf.format(tx.getDate());
-            if (tx.getDebitAccount().equals(accountName)) {
-                if (acc.getType().equals("Asset") || acc.getType().equals("Expense")) {
-                    running += amount;
-                } else {
-                    running -= amount;
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
-                        String.format(Locale.US, "%.2f", amount),
-                        String.format(Locale.US, "%.2f", running)});
-                affected = true;
-            }
-            if (tx.getCreditAccount().equals(accountName)) {
-                if (acc.getType().equals("Liability") || acc.getType().equals("Owner's Equity") || acc.getType().equals("Revenue")) {
-                    running += amount;
-                } else {
-                    running -= amount;
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
-                        String.format(Locale.US, "%.2f", amount),
-                        String.format(Locale.US, "%.2f", running)});
-                affected = true;
-            }
-        }
+        ledgerTableModel.show(getAccountByName(accountName));
     }
 
 
     private JPanel createBalanceSheetPanel() {
-        JPanel panel = new JPanel(new GridLayout(1,2));
+        JPanel panel = new JPanel(new BorderLayout());
+        JPanel sheets = new JPanel(new GridLayout(1,2));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JCheckBox asOfCheck = new JCheckBox("As of:");
+        JSpinner asOfSpinner = new JSpinner(new SpinnerDateModel());
+        asOfSpinner.setEditor(new JSpinner.DateEditor(asOfSpinner, "yyyy-MM-dd"));
+        asOfSpinner.setEnabled(false);
+        top.add(asOfCheck);
+        top.add(asOfSpinner);
+        top.add(new JLabel("(unchecked shows current balances)"));
 
         JPanel assetsPanel = new JPanel(new BorderLayout());
         assetsPanel.add(new JLabel("Assets", SwingConstants.CENTER), BorderLayout.NORTH);
         String[] assetCols = {"Account Name", "Amount"};
         assetsTableModel = new DefaultTableModel(assetCols, 0) {
             public boolean isCellEditable(int r,int c){ return false; }
+            public Class<?> getColumnClass(int c){ return c == 1 ? Long.class : Object.class; }
         };
         JTable assetsTable = new JTable(assetsTableModel);
+        assetsTable.setDefaultRenderer(Long.class, reportAmountRenderer);
         assetsTable.setAutoCreateRowSorter(true);
         assetsPanel.add(new JScrollPane(assetsTable), BorderLayout.CENTER);
         JLabel totalAssetsLabel = new JLabel("", SwingConstants.RIGHT);
@@ -465,55 +570,247 @@ public class AccountingApp extends JFrame {
         String[] liabCols = {"Account Name", "Amount"};
         liabilitiesTableModel = new DefaultTableModel(liabCols, 0) {
             public boolean isCellEditable(int r,int c){ return false; }
+            public Class<?> getColumnClass(int c){ return c == 1 ? Long.class : Object.class; }
         };
         JTable liabTable = new JTable(liabilitiesTableModel);
+        liabTable.setDefaultRenderer(Long.class, reportAmountRenderer);
         liabTable.setAutoCreateRowSorter(true);
         liabilitiesPanel.add(new JScrollPane(liabTable), BorderLayout.CENTER);
         JLabel totalLiabLabel = new JLabel("", SwingConstants.RIGHT);
         liabilitiesPanel.add(totalLiabLabel, BorderLayout.SOUTH);
 
-        panel.add(assetsPanel);
-        panel.add(liabilitiesPanel);
+        sheets.add(assetsPanel);
+        sheets.add(liabilitiesPanel);
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(sheets, BorderLayout.CENTER);
 
 
+        // Every row and both totals from one read of the balances, so they add up while postings land.
         Runnable updateLabels = () -> {
-            totalAssetsLabel.setText("Total Assets: " + String.format(Locale.US, "%.2f", calculateTotalAssets()));
-            totalLiabLabel.setText("Total Liabilities and Equity: " + String.format(Locale.US, "%.2f", calculateTotalLiabilitiesAndEquity()));
+            long[] balances = balanceSheetBalances();
+            for (Account a : balanceSheetRows.keySet()) updateBalanceSheetRow(a, balances);
+            totalAssetsLabel.setText("Total Assets: " + Money.format(calculateTotalAssets(balances)));
+            totalLiabLabel.setText("Total Liabilities and Equity: " + Money.format(calculateTotalLiabilitiesAndEquity(balances)));
         };
 
         updateLabels.run();
 
+        ActionListener asOfChanged = e -> {
+            asOfSpinner.setEnabled(asOfCheck.isSelected());
+            balanceSheetAsOf = asOfCheck.isSelected() ? Dates.fromDate((Date) asOfSpinner.getValue()) : null;
+            refreshBalanceSheet();
+            updateLabels.run();
+        };
+        asOfCheck.addActionListener(asOfChanged);
+        asOfSpinner.addChangeListener(e -> asOfChanged.actionPerformed(null));
+
+        transactionListeners.add(tx -> updateLabels.run());
+
         panel.putClientProperty("updateLabels", updateLabels);
         return panel;
     }
 
+    private JPanel createTrialBalancePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        Calendar startOfYear = Calendar.getInstance();
+        startOfYear.set(Calendar.DAY_OF_YEAR, 1);
+        JSpinner fromSpinner = new JSpinner(new SpinnerDateModel(startOfYear.getTime(), null, null, Calendar.DAY_OF_MONTH));
+        fromSpinner.setEditor(new JSpinner.DateEditor(fromSpinner, "yyyy-MM-dd"));
+        JSpinner toSpinner = new JSpinner(new SpinnerDateModel());
+        toSpinner.setEditor(new JSpinner.DateEditor(toSpinner, "yyyy-MM-dd"));
+        JButton runBtn = new JButton("Run");
+        JLabel status = new JLabel(" ");
+        top.add(new JLabel("From:"));
+        top.add(fromSpinner);
+        top.add(new JLabel("To:"));
+        top.add(toSpinner);
+        top.add(runBtn);
+        top.add(status);
+
+        DefaultTableModel trialModel = new DefaultTableModel(new String[]{"Account Name", "Type", "Debits", "Credits", "Net"}, 0) {
+            public boolean isCellEditable(int r,int c){ return false; }
+            public Class<?> getColumnClass(int c){ return c >= 2 ? Long.class : Object.class; }
+        };
+        DefaultTableModel incomeModel = new DefaultTableModel(new String[]{"Line", "Amount"}, 0) {
+            public boolean isCellEditable(int r,int c){ return false; }
+            public Class<?> getColumnClass(int c){ return c == 1 ? Long.class : Object.class; }
+        };
+        JPanel trialPanel = new JPanel(new BorderLayout());
+        trialPanel.add(new JLabel("Trial Balance (period activity)", SwingConstants.CENTER), BorderLayout.NORTH);
+        JTable trialTable = new JTable(trialModel);
+        trialTable.setDefaultRenderer(Long.class, reportAmountRenderer);
+        trialPanel.add(new JScrollPane(trialTable), BorderLayout.CENTER);
+        JPanel incomePanel = new JPanel(new BorderLayout());
+        incomePanel.add(new JLabel("Income Statement", SwingConstants.CENTER), BorderLayout.NORTH);
+        JTable incomeTable = new JTable(incomeModel);
+        incomeTable.setDefaultRenderer(Long.class, reportAmountRenderer);
+        incomePanel.add(new JScrollPane(incomeTable), BorderLayout.CENTER);
+        JPanel reports = new JPanel(new GridLayout(1,2));
+        reports.add(trialPanel);
+        reports.add(incomePanel);
+
+        runBtn.addActionListener(e -> {
+            int fromDay = Dates.fromDate((Date) fromSpinner.getValue());
+            int toDay = Dates.fromDate((Date) toSpinner.getValue());
+            if (fromDay > toDay) {
+                JOptionPane.showMessageDialog(this, "The start date is after the end date.");
+                return;
+            }
+            int inPeriod = engine.journalCount(fromDay, toDay);
+            List<Account> chart = new ArrayList<>(engine.accounts());
+            runBtn.setEnabled(false);
+            status.setText("Summing " + inPeriod + " transactions...");
+            long started = System.nanoTime();
+            // The engine sums on the ForkJoin pool; this thread only waits so the EDT doesn't.
+            CompletableFuture.supplyAsync(() -> engine.trialBalance(fromDay, toDay))
+                .whenComplete((tb, err) -> SwingUtilities.invokeLater(() -> {
+                    runBtn.setEnabled(true);
+                    if (err != null) {
+                        status.setText(" ");
+                        JOptionPane.showMessageDialog(this, "Could not compute the trial balance: " + err.getMessage());
+                        return;
+                    }
+                    showTrialBalance(tb, chart, trialModel, incomeModel);
+                    status.setText(inPeriod + " transactions in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+                }));
+        });
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(reports, BorderLayout.CENTER);
+        return panel;
+    }
 
-    private Account getAccountByName(String name) {
-        for (Account a : accounts) {
-            if (a.getName().equals(name)) return a;
+    private void showTrialBalance(TrialBalance tb, List<Account> chart, DefaultTableModel trialModel, DefaultTableModel incomeModel) {
+        trialModel.setRowCount(0);
+        for (Account a : chart) {
+            int id = a.getId();
+            if (tb.getDebits(id) == 0 && tb.getCredits(id) == 0) continue;
+            trialModel.addRow(new Object[]{a.getName(), a.getType(), tb.getDebits(id), tb.getCredits(id), tb.getNet(id, a.getType())});
+        }
+        trialModel.addRow(new Object[]{"Total", null, tb.totalDebits(), tb.totalCredits(), null});
+
+        incomeModel.setRowCount(0);
+        long revenue = 0;
+        long expenses = 0;
+        for (Account a : engine.accountsOfType(AccountType.REVENUE)) {
+            if (a.getId() >= tb.getAccountCount()) continue;
+            long net = tb.getNet(a.getId(), a.getType());
+            revenue = Money.add(revenue, net);
+            incomeModel.addRow(new Object[]{a.getName(), net});
+        }
+        incomeModel.addRow(new Object[]{"Total Revenue", revenue});
+        for (Account a : engine.accountsOfType(AccountType.EXPENSE)) {
+            if (a.getId() >= tb.getAccountCount()) continue;
+            long net = tb.getNet(a.getId(), a.getType());
+            expenses = Money.add(expenses, net);
+            incomeModel.addRow(new Object[]{a.getName(), net});
         }
-        return null;
+        incomeModel.addRow(new Object[]{"Total Expenses", expenses});
+        incomeModel.addRow(new Object[]{"Net Income", Money.subtract(revenue, expenses)});
     }
 
-    private List<String> getDebitAccountNames() {
-        List<String> out = new ArrayList<>();
-        for (Account a : accounts) {
-            if (a.getType().equals("Asset") || a.getType().equals("Expense")) out.add(a.getName());
+    private void updateBalanceSheetRow(Account a, long[] balances) {
+        Integer row = a == null ? null : balanceSheetRows.get(a);
+        if (row == null) return;
+        DefaultTableModel model = a.getType() == AccountType.ASSET ? assetsTableModel : liabilitiesTableModel;
+        model.setValueAt(balanceOf(a, balances), row, 1);
+    }
+
+    // What the Balance Sheet shows, by id, read at one instant: current balances, or as of the chosen day.
+    private long[] balanceSheetBalances() {
+        return balanceSheetAsOf == null ? engine.balances() : engine.balancesAsOf(balanceSheetAsOf);
+    }
+
+    // An account opened after balances was read has had no postings in it yet.
+    private static long balanceOf(Account a, long[] balances) {
+        return a.getId() < balances.length ? balances[a.getId()] : a.getOpeningBalance();
+    }
+
+    private void updateAccountRow(Account a, long[] balances) {
+        if (a == null || a.getId() >= accountsTableModel.getRowCount()) return;
+        int row = a.getId();
+        accountsTableModel.setValueAt(balanceOf(a, balances), row, 2);
+    }
+
+    // Queues txs for the views; however many postings arrive before the EDT gets to them, it is one invokeLater.
+    private void publishAll(Collection<Transaction> txs) {
+        if (txs.isEmpty()) return;
+        unpublished.addAll(txs);
+        if (publishScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::publishPending);
         }
-        return out;
     }
 
-    private List<String> getCreditAccountNames() {
-        List<String> out = new ArrayList<>();
-        for (Account a : accounts) {
-            if (a.getType().equals("Liability") || a.getType().equals("Owner's Equity") || a.getType().equals("Revenue")) out.add(a.getName());
+    private void publishPending() {
+        publishScheduled.set(false);
+        List<Transaction> batch = new ArrayList<>();
+        for (Transaction tx; (tx = unpublished.poll()) != null; ) batch.add(tx);
+        if (batch.isEmpty()) return;
+        postingsSeen += batch.size();
+        scheduleIndexing();
+        if (batch.size() <= MAX_INCREMENTAL_BATCH) {
+            for (Transaction tx : batch) fireTransactionPosted(tx);
+        } else {
+            // Someone may be halfway through the posting form; its combos only change with the accounts.
+            if (accountsTableModel != null && accountsTableModel.getRowCount() != engine.accountCount()) {
+                refreshAllViews();
+            } else {
+                refreshPostingViews();
+            }
+        }
+    }
+
+    // Queues indexing of the postings seen but not yet indexed, unless a task for it is already queued.
+    private void scheduleIndexing() {
+        if (!useSearchIndex || !indexing.compareAndSet(false, true)) return;
+        try {
+            searchExecutor.execute(this::indexSome);
+        } catch (RejectedExecutionException ex) {
+            // The window is closing; nothing will search again.
         }
-        return out;
+    }
+
+    // Search thread: indexes the next chunk in seq order and queues itself behind any search if more remain.
+    private void indexSome() {
+        int from = searchIndex.size();
+        int to = Math.min(postingsSeen, from + INDEX_CHUNK);
+        for (int seq = from; seq < to; seq++) {
+            Transaction tx = new Transaction(seq);
+            searchIndex.add(seq, tx.getDateText(), tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount());
+        }
+        indexing.set(false);
+        if (to < postingsSeen) scheduleIndexing();
+    }
+
+    private void fireTransactionPosted(Transaction tx) {
+        for (TransactionListener l : transactionListeners) l.transactionPosted(tx);
+    }
+
+
+    private Account getAccountByName(String name) {
+        return engine.account(name);
+    }
+
+    private List<String> getDebitAccountNames() {
+        return namesOf(AccountType.ASSET, AccountType.EXPENSE);
+    }
+
+    private List<String> getCreditAccountNames() {
+        return namesOf(AccountType.LIABILITY, AccountType.OWNERS_EQUITY, AccountType.REVENUE);
     }
 
     private List<String> getAllAccountNames() {
+        List<String> out = new ArrayList<>(engine.accountCount());
+        for (Account a : engine.accounts()) out.add(a.getName());
+        return out;
+    }
+
+    private List<String> namesOf(AccountType... types) {
         List<String> out = new ArrayList<>();
-        for (Account a : accounts) out.add(a.getName());
+        for (AccountType type : types) {
+            for (Account a : engine.accountsOfType(type)) out.add(a.getName());
+        }
         return out;
     }
 
@@ -543,25 +840,19 @@ public class AccountingApp extends JFrame {
 
     private void refreshAllViews() {
         if (transactionsTableModel != null) {
-            filterTransactions("");
+            filterTransactions(transactionsTableModel.getQuery());
         }
 
         if (accountsTableModel != null) {
             accountsTableModel.setRowCount(0);
-            for (Account a : accounts) {
-                accountsTableModel.addRow(new Object[]{a.getName(), a.getType(), String.format(Locale.US, "%.2f", a.getBalance())});
+            long[] balances = engine.balances();
+            for (Account a : engine.accounts()) {
+                accountsTableModel.addRow(new Object[]{a.getName(), a.getType(), balanceOf(a, balances)});
             }
         }
 
         if (journalTableModel != null) {
-            journalTableModel.setRowCount(0);
-            for (Transaction tx : transactions) {
-                String dateStr = sdf.format(tx.getDate());
-                journalTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(),
-                        String.format(Locale.US, "%.2f", tx.getAmount()), ""});
-                journalTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getCreditAccount(),
-                        "", String.format(Locale.US, "%.2f", tx.getAmount())});
-            }
+            journalTableModel.refresh();
         }
 
         refreshLedgerAccountCombo();
@@ -572,20 +863,33 @@ public class AccountingApp extends JFrame {
             updateGeneralLedgerTable(sel);
         }
 
-        if (assetsTableModel != null && liabilitiesTableModel != null) {
-            assetsTableModel.setRowCount(0);
-            liabilitiesTableModel.setRowCount(0);
-            for (Account a : accounts) {
-                if (a.getType().equals("Asset")) {
-                    assetsTableModel.addRow(new Object[]{a.getName(), String.format(Locale.US, "%.2f", a.getBalance())});
-                } else if (a.getType().equals("Liability") || a.getType().equals("Owner's Equity")) {
-                    liabilitiesTableModel.addRow(new Object[]{a.getName(), String.format(Locale.US, "%.2f", a.getBalance())});
-                }
-            }
-        }
+        refreshBalanceSheet();
 
         refreshAccountCombos();
 
+        runUpdateLabels();
+    }
+
+    // After a large batch of postings with the same accounts: tables and totals only, no combo is rebuilt.
+    private void refreshPostingViews() {
+        if (transactionsTableModel != null) {
+            filterTransactions(transactionsTableModel.getQuery());
+        }
+        // The Balance Sheet rows are redone with its totals in runUpdateLabels().
+        if (accountsTableModel != null) {
+            long[] balances = engine.balances();
+            for (Account a : engine.accounts()) updateAccountRow(a, balances);
+        }
+        if (journalTableModel != null) {
+            journalTableModel.refresh();
+        }
+        if (ledgerAccountCombo != null && ledgerAccountCombo.getSelectedItem() != null) {
+            updateGeneralLedgerTable((String) ledgerAccountCombo.getSelectedItem());
+        }
+        runUpdateLabels();
+    }
+
+    private void runUpdateLabels() {
         JTabbedPane tp = (JTabbedPane) getContentPane().getComponent(0);
         for (int i = 0; i < tp.getTabCount(); i++) {
             Component c = tp.getComponentAt(i);
@@ -596,20 +900,39 @@ public class AccountingApp extends JFrame {
         }
     }
 
+    private void refreshBalanceSheet() {
+        if (assetsTableModel == null || liabilitiesTableModel == null) return;
+        assetsTableModel.setRowCount(0);
+        liabilitiesTableModel.setRowCount(0);
+        balanceSheetRows.clear();
+        long[] balances = balanceSheetBalances();
+        for (Account a : engine.accountsOfType(AccountType.ASSET)) {
+            balanceSheetRows.put(a, assetsTableModel.getRowCount());
+            assetsTableModel.addRow(new Object[]{a.getName(), balanceOf(a, balances)});
+        }
+        for (AccountType type : new AccountType[]{AccountType.LIABILITY, AccountType.OWNERS_EQUITY}) {
+            for (Account a : engine.accountsOfType(type)) {
+                balanceSheetRows.put(a, liabilitiesTableModel.getRowCount());
+                liabilitiesTableModel.addRow(new Object[]{a.getName(), balanceOf(a, balances)});
+            }
+        }
+    }
+
     private void updateGeneralLedgerTableModel(String accountName) {
         if (accountName == null) return;
         updateGeneralLedgerTable(accountName);
     }
 
-    private double calculateTotalAssets() {
-        double sum = 0;
-        for (Account a : accounts) if (a.getType().equals("Asset")) sum += a.getBalance();
+    private long calculateTotalAssets(long[] balances) {
+        long sum = 0;
+        for (Account a : engine.accountsOfType(AccountType.ASSET)) sum = Money.add(sum, balanceOf(a, balances));
         return sum;
     }
 
-    private double calculateTotalLiabilitiesAndEquity() {
-        double sum = 0;
-        for (Account a : accounts) if (a.getType().equals("Liability") || a.getType().equals("Owner's Equity")) sum += a.getBalance();
+    private long calculateTotalLiabilitiesAndEquity(long[] balances) {
+        long sum = 0;
+        for (Account a : engine.accountsOfType(AccountType.LIABILITY)) sum = Money.add(sum, balanceOf(a, balances));
+        for (Account a : engine.accountsOfType(AccountType.OWNERS_EQUITY)) sum = Money.add(sum, balanceOf(a, balances));
         return sum;
     }
 
@@ -4,97 +4,81 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.text.*;
-import java.util.*;
+import java.util.ArrayList;
 import java.util.List;
 
 
 public class AccountingAppPractice extends JFrame {
 
-    // ------------------------
-    // Account variables
-    // ------------------------
-    // Assets
-    private final String cash_Asset = "Cash [Asset]";
-    private final String accountsReceivable_Asset = "Accounts Receivable [Asset]";
-    private final String inventory_Asset = "Inventory [Asset]";
-    private final String supplies_Asset = "Supplies [Asset]";
-    private final String prepaidExpenses_Asset = "Prepaid Expenses [Asset]";
-    private final String equipment_Asset = "Equipment [Asset]";
-    private final String furnitureFixtures_Asset = "Furniture and Fixtures [Asset]";
-    private final String land_Asset = "Land [Asset]";
-    private final String buildings_Asset = "Buildings [Asset]";
-
-    // Liabilities
-    private final String accountsPayable_Liability = "Accounts Payable [Liability]";
-    private final String notesPayable_Liability = "Notes Payable [Liability]";
-    private final String salariesPayable_Liability = "Salaries Payable [Liability]";
-    private final String rentPayable_Liability = "Rent Payable [Liability]";
-    private final String interestPayable_Liability = "Interest Payable [Liability]";
-    private final String unearnedRevenue_Liability = "Unearned Revenue [Liability]";
-
-    // Owner's Equity
-    private final String ownersCapital_Equity = "Owner's Capital [Owner's Equity]";
-    private final String ownersDrawing_Equity = "Owner's Drawing [Owner's Equity]";
-
-    // Revenue
-    private final String serviceRevenue_Revenue = "Service Revenue [Revenue]";
-    private final String salesRevenue_Revenue = "Sales Revenue [Revenue]";
-    private final String interestIncome_Revenue = "Interest Income [Revenue]";
-
-    // Expenses
-    private final String salariesExpense_Expense = "Salaries Expense [Expense]";
-    private final String rentExpense_Expense = "Rent Expense [Expense]";
-    private final String utilitiesExpense_Expense = "Utilities Expense [Expense]";
-    private final String suppliesExpense_Expense = "Supplies Expense [Expense]";
-    private final String depreciationExpense_Expense = "Depreciation Expense [Expense]";
-    private final String insuranceExpense_Expense = "Insurance Expense [Expense]";
-    private final String advertisingExpense_Expense = "Advertising Expense [Expense]";
-
-    // Combined immutable list
-    private final List<String> allAccounts;
+    // The book; this frame keeps no balances or postings of its own.
+    private final LedgerEngine engine = LedgerEngine.inMemory();
+    // Full rebuilds walk the journal this many postings at a time instead of copying it whole.
+    private static final int JOURNAL_PAGE = 4096;
+    // The search the Transactions table was last filtered by, lower case.
+    private String shownQuery = "";
 
     // ------------------------
     // Data models and storage
     // ------------------------
-    private final Map<String, Double> accountBalances = new LinkedHashMap<>();
-    private final List<Transaction> transactions = new ArrayList<>();
-
     private final DefaultTableModel transactionsModel = new DefaultTableModel(
             new String[]{"Date", "Description", "Debit Account", "Credit Account", "Amount"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c == 4 ? Long.class : Object.class;
+        }
     };
     private final DefaultTableModel accountsModel = new DefaultTableModel(
             new String[]{"Account", "Type", "Balance"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c == 2 ? Long.class : Object.class;
+        }
     };
     private final DefaultTableModel journalModel = new DefaultTableModel(
             new String[]{"Date", "Description", "Account", "Debit", "Credit"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c >= 3 ? Long.class : Object.class;
+        }
     };
     private final DefaultTableModel ledgerModel = new DefaultTableModel(
             new String[]{"Date", "Description", "Debit Account", "Credit Account", "Amount", "Running Balance"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c >= 4 ? Long.class : Object.class;
+        }
     };
     private final DefaultTableModel assetsModel = new DefaultTableModel(
             new String[]{"Account", "Amount"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c == 1 ? Long.class : Object.class;
+        }
     };
     private final DefaultTableModel liabilitiesModel = new DefaultTableModel(
             new String[]{"Account", "Amount"}, 0) {
         public boolean isCellEditable(int r, int c) {
             return false;
         }
+
+        public Class<?> getColumnClass(int c) {
+            return c == 1 ? Long.class : Object.class;
+        }
     };
 
     // UI components
@@ -102,27 +86,13 @@ public class AccountingAppPractice extends JFrame {
     private JTextField dateField, descField, amountField, searchField;
     private JTable transactionsTable, accountsTable, journalTable, ledgerTable, assetsTable, liabilitiesTable;
     private JLabel totalAssetsLabel, totalLiabEqLabel;
-
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+    // Amount columns hold Long cents; this draws them without building a String per cell.
+    private final MoneyCellRenderer amountRenderer = new MoneyCellRenderer(false);
 
     // ------------------------
     // Constructor
     // ------------------------
     public AccountingAppPractice() {
-        List<String> tmp = new ArrayList<>(Arrays.asList(
-                cash_Asset, accountsReceivable_Asset, inventory_Asset, supplies_Asset, prepaidExpenses_Asset,
-                equipment_Asset, furnitureFixtures_Asset, land_Asset, buildings_Asset,
-                accountsPayable_Liability, notesPayable_Liability, salariesPayable_Liability, rentPayable_Liability,
-                interestPayable_Liability, unearnedRevenue_Liability,
-                ownersCapital_Equity, ownersDrawing_Equity,
-                serviceRevenue_Revenue, salesRevenue_Revenue, interestIncome_Revenue,
-                salariesExpense_Expense, rentExpense_Expense, utilitiesExpense_Expense, suppliesExpense_Expense,
-                depreciationExpense_Expense, insuranceExpense_Expense, advertisingExpense_Expense
-        ));
-        allAccounts = Collections.unmodifiableList(tmp);
-
-        for (String a : allAccounts) accountBalances.put(a, 0.0);
-
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception ignored) {
@@ -144,7 +114,6 @@ public class AccountingAppPractice extends JFrame {
 
         add(tabs, BorderLayout.CENTER);
 
-        sdf.setLenient(false);
         refreshAllViews();
     }
 
@@ -160,7 +129,7 @@ public class AccountingAppPractice extends JFrame {
         gbc.gridx = 0;
         gbc.gridy = 0;
         topPanel.add(new JLabel("Date (YYYY-MM-DD):"), gbc);
-        dateField = new JTextField(sdf.format(new Date()));
+        dateField = new JTextField(Dates.format(Dates.today()));
         gbc.gridx = 1;
         topPanel.add(dateField, gbc);
 
@@ -174,14 +143,14 @@ public class AccountingAppPractice extends JFrame {
         gbc.gridx = 0;
         gbc.gridy = 2;
         topPanel.add(new JLabel("Debit Account:"), gbc);
-        debitCombo = new JComboBox<>(allAccounts.toArray(new String[0]));
+        debitCombo = new JComboBox<>(accountNames());
         gbc.gridx = 1;
         topPanel.add(debitCombo, gbc);
 
         gbc.gridx = 0;
         gbc.gridy = 3;
         topPanel.add(new JLabel("Credit Account:"), gbc);
-        creditCombo = new JComboBox<>(allAccounts.toArray(new String[0]));
+        creditCombo = new JComboBox<>(accountNames());
         gbc.gridx = 1;
         topPanel.add(creditCombo, gbc);
 
@@ -209,7 +178,7 @@ public class AccountingAppPractice extends JFrame {
         topPanel.add(btns, gbc);
 
         clearBtn.addActionListener(e -> {
-            dateField.setText(sdf.format(new Date()));
+            dateField.setText(Dates.format(Dates.today()));
             descField.setText("");
             amountField.setText("");
             debitCombo.setSelectedIndex(0);
@@ -278,7 +247,7 @@ public class AccountingAppPractice extends JFrame {
         p.setBorder(new EmptyBorder(10, 10, 10, 10));
         JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
         top.add(new JLabel("Select Account:"));
-        ledgerAccountCombo = new JComboBox<>(allAccounts.toArray(new String[0]));
+        ledgerAccountCombo = new JComboBox<>(accountNames());
         top.add(ledgerAccountCombo);
         JButton refresh = new JButton("Refresh");
         top.add(refresh);
@@ -354,79 +323,48 @@ public class AccountingAppPractice extends JFrame {
     // Core logic
     // ------------------------
     private void postTransaction() {
-        String dateS = dateField.getText().trim();
-        String desc = descField.getText().trim();
-        String debit = (String) debitCombo.getSelectedItem();
-        String credit = (String) creditCombo.getSelectedItem();
-        String amtS = amountField.getText().trim();
-
-        if (debit == null || credit == null) {
-            showError("Select debit and credit accounts.");
-            return;
-        }
-        if (debit.equals(credit)) {
-            showError("Debit and Credit must differ.");
-            return;
-        }
-
-        Date date;
-        try {
-            date = sdf.parse(dateS);
-        } catch (ParseException ex) {
-            showError("Invalid date. Use YYYY-MM-DD.");
-            return;
-        }
-
-        double amt;
-        try {
-            amt = Double.parseDouble(amtS);
-            if (amt <= 0) throw new NumberFormatException();
-        } catch (NumberFormatException ex) {
-            showError("Amount must be a positive number.");
-            return;
-        }
-
-        if (isAssetOrExpense(debit)) accountBalances.put(debit, accountBalances.get(debit) + amt);
-        else accountBalances.put(debit, accountBalances.get(debit) - amt);
-
-        if (isLiabilityEquityRevenue(credit)) accountBalances.put(credit, accountBalances.get(credit) + amt);
-        else accountBalances.put(credit, accountBalances.get(credit) - amt);
-
-        transactions.add(new Transaction(date, desc, debit, credit, amt));
-        transactions.sort(Comparator.comparing(t -> t.date));
-
-        refreshAllViews();
-        JOptionPane.showMessageDialog(this, "Transaction posted.");
+        LedgerEngine.PostingRequest req = new LedgerEngine.PostingRequest(dateField.getText().trim(),
+                descField.getText().trim(), (String) debitCombo.getSelectedItem(),
+                (String) creditCombo.getSelectedItem(), amountField.getText().trim());
+        engine.post(req).whenComplete((seq, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) {
+                showError(err.getMessage());
+                return;
+            }
+            postingAdded(seq);
+            JOptionPane.showMessageDialog(this, "Transaction posted.");
+        }));
     }
 
-    private boolean isAssetOrExpense(String acc) {
-        return acc.contains("[Asset]") || acc.contains("[Expense]");
+    private String[] accountNames() {
+        List<String> names = new ArrayList<>();
+        for (Account a : engine.accounts()) names.add(a.getName());
+        return names.toArray(new String[0]);
     }
 
-    private boolean isLiabilityEquityRevenue(String acc) {
-        return acc.contains("[Liability]") || acc.contains("[Owner's Equity]") || acc.contains("[Revenue]");
+    private String nameOf(int accountId) {
+        return engine.account(accountId).getName();
     }
 
     private void refreshAllViews() {
-        transactionsModel.setRowCount(0);
-        for (int i = transactions.size() - 1; i >= 0; i--) {
-            Transaction t = transactions.get(i);
-            transactionsModel.addRow(new Object[]{sdf.format(t.date), t.description, t.debitAccount, t.creditAccount, fmt(t.amount)});
-        }
+        filterTransactions(searchField == null ? "" : searchField.getText().trim());
 
         journalModel.setRowCount(0);
-        for (Transaction t : transactions) {
-            journalModel.addRow(new Object[]{sdf.format(t.date), t.description, t.debitAccount, fmt(t.amount), ""});
-            journalModel.addRow(new Object[]{sdf.format(t.date), t.description, t.creditAccount, "", fmt(t.amount)});
+        int total = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        for (int from = 0; from < total; from += JOURNAL_PAGE) {
+            for (int seq : engine.journal(Integer.MIN_VALUE, Integer.MAX_VALUE, from, JOURNAL_PAGE)) {
+                journalModel.addRow(journalLeg(seq, true));
+                journalModel.addRow(journalLeg(seq, false));
+            }
         }
 
         accountsModel.setRowCount(0);
-        for (Map.Entry<String, Double> e : accountBalances.entrySet()) {
-            accountsModel.addRow(new Object[]{e.getKey(), extractType(e.getKey()), fmt(e.getValue())});
+        for (Account a : engine.accounts()) {
+            accountsModel.addRow(new Object[]{a.getName(), a.getType(), a.getBalance()});
         }
         if (accountsTable != null) accountsTable.setModel(accountsModel);
 
-        if (ledgerAccountCombo != null) ledgerAccountCombo.setModel(new DefaultComboBoxModel<>(allAccounts.toArray(new String[0])));
+        if (ledgerAccountCombo != null) ledgerAccountCombo.setModel(new DefaultComboBoxModel<>(accountNames()));
 
         refreshBalanceSheet();
         if (totalAssetsLabel != null) totalAssetsLabel.setText("Total Assets: " + fmt(calculateTotalAssets()));
@@ -438,101 +376,122 @@ public class AccountingAppPractice extends JFrame {
         }
     }
 
+    // Newest first: walks the journal a page at a time from its end.
     private void filterTransactions(String q) {
-        String lower = q.toLowerCase();
+        shownQuery = q.toLowerCase();
         transactionsModel.setRowCount(0);
-        for (int i = transactions.size() - 1; i >= 0; i--) {
-            Transaction t = transactions.get(i);
-            if (q.isEmpty()
-                    || sdf.format(t.date).contains(lower)
-                    || t.description.toLowerCase().contains(lower)
-                    || t.debitAccount.toLowerCase().contains(lower)
-                    || t.creditAccount.toLowerCase().contains(lower)) {
-                transactionsModel.addRow(new Object[]{sdf.format(t.date), t.description, t.debitAccount, t.creditAccount, fmt(t.amount)});
+        int total = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        for (int end = total; end > 0; end -= JOURNAL_PAGE) {
+            int from = Math.max(0, end - JOURNAL_PAGE);
+            int[] seqs = engine.journal(Integer.MIN_VALUE, Integer.MAX_VALUE, from, end - from);
+            for (int i = seqs.length - 1; i >= 0; i--) {
+                Object[] row = transactionRow(seqs[i]);
+                if (matches(row, shownQuery)) transactionsModel.addRow(row);
             }
         }
     }
 
+    // Patches each view with one new posting rather than rebuilding them from the whole book.
+    private void postingAdded(int seq) {
+        int day = engine.epochDay(seq);
+        // It is the newest posting of its day, so the last one the journal has on or before that day.
+        int index = engine.journalCount(Integer.MIN_VALUE, day) - 1;
+        journalModel.insertRow(2 * index, journalLeg(seq, true));
+        journalModel.insertRow(2 * index + 1, journalLeg(seq, false));
+
+        Object[] row = transactionRow(seq);
+        if (matches(row, shownQuery)) {
+            // Dates are yyyy-MM-dd, so they compare as text; only rows dated later stay above it.
+            String date = (String) row[0];
+            int at = 0;
+            while (at < transactionsModel.getRowCount() && date.compareTo((String) transactionsModel.getValueAt(at, 0)) < 0) at++;
+            transactionsModel.insertRow(at, row);
+        }
+
+        for (int id : new int[]{engine.debitId(seq), engine.creditId(seq)}) {
+            if (id < accountsModel.getRowCount()) accountsModel.setValueAt(engine.account(id).getBalance(), id, 2);
+        }
+
+        String selected = ledgerAccountCombo == null ? null : (String) ledgerAccountCombo.getSelectedItem();
+        Account shown = selected == null ? null : engine.account(selected);
+        if (shown != null && (shown.getId() == engine.debitId(seq) || shown.getId() == engine.creditId(seq))) {
+            int at = engine.ledgerCount(shown, Integer.MIN_VALUE, day) - 1;
+            List<LedgerEngine.LedgerLine> from = engine.ledger(shown, Integer.MIN_VALUE, Integer.MAX_VALUE, at, Integer.MAX_VALUE);
+            ledgerModel.insertRow(at, ledgerRow(from.get(0)));
+            // A back-dated posting moves the running balance of every line after it.
+            for (int i = 1; i < from.size(); i++) ledgerModel.setValueAt(from.get(i).getBalance(), at + i, 5);
+        }
+
+        refreshBalanceSheet();
+        totalAssetsLabel.setText("Total Assets: " + fmt(calculateTotalAssets()));
+        totalLiabEqLabel.setText("Total Liabilities + Equity: " + fmt(calculateTotalLiabilitiesAndEquity()));
+    }
+
+    private Object[] transactionRow(int seq) {
+        return new Object[]{Dates.format(engine.epochDay(seq)), engine.description(seq),
+                nameOf(engine.debitId(seq)), nameOf(engine.creditId(seq)), engine.amount(seq)};
+    }
+
+    private static boolean matches(Object[] row, String lower) {
+        if (lower.isEmpty()) return true;
+        for (int c = 0; c < 4; c++) {
+            if (((String) row[c]).toLowerCase().contains(lower)) return true;
+        }
+        return false;
+    }
+
+    private Object[] journalLeg(int seq, boolean debit) {
+        long amount = engine.amount(seq);
+        return new Object[]{Dates.format(engine.epochDay(seq)), engine.description(seq),
+                nameOf(debit ? engine.debitId(seq) : engine.creditId(seq)), debit ? amount : null, debit ? null : amount};
+    }
+
+    private Object[] ledgerRow(LedgerEngine.LedgerLine line) {
+        return new Object[]{Dates.format(line.getEpochDay()), line.getDescription(),
+                nameOf(line.getDebitId()), nameOf(line.getCreditId()), line.getAmount(), line.getBalance()};
+    }
+
     private void styleTable(JTable table) {
         table.setFillsViewportHeight(true);
         table.setRowHeight(24);
+        table.setDefaultRenderer(Long.class, amountRenderer);
     }
 
     private void showError(String msg) {
         JOptionPane.showMessageDialog(this, msg, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
-    private String extractType(String acc) {
-        if (acc.contains("[Asset]")) return "Asset";
-        if (acc.contains("[Liability]")) return "Liability";
-        if (acc.contains("[Owner's Equity]")) return "Owner's Equity";
-        if (acc.contains("[Revenue]")) return "Revenue";
-        if (acc.contains("[Expense]")) return "Expense";
-        return "";
-    }
-
     private void updateLedgerForAccount(String account) {
         ledgerModel.setRowCount(0);
-        double running = 0;
-        for (Transaction t : transactions) {
-            if (t.debitAccount.equals(account) || t.creditAccount.equals(account)) {
-                double debit = t.debitAccount.equals(account) ? t.amount : 0;
-                double credit = t.creditAccount.equals(account) ? t.amount : 0;
-                running += debit - credit;
-                ledgerModel.addRow(new Object[]{sdf.format(t.date), t.description, t.debitAccount, t.creditAccount, fmt(t.amount), fmt(running)});
-            }
+        Account a = engine.account(account);
+        if (a == null) return;
+        for (LedgerEngine.LedgerLine line : engine.ledger(a, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            ledgerModel.addRow(ledgerRow(line));
         }
     }
 
     private void refreshBalanceSheet() {
         assetsModel.setRowCount(0);
         liabilitiesModel.setRowCount(0);
-        for (Map.Entry<String, Double> e : accountBalances.entrySet()) {
-            String type = extractType(e.getKey());
-            if (type.equals("Asset")) assetsModel.addRow(new Object[]{e.getKey(), fmt(e.getValue())});
-            if (type.equals("Liability") || type.equals("Owner's Equity")) liabilitiesModel.addRow(new Object[]{e.getKey(), fmt(e.getValue())});
+        for (Account a : engine.accounts()) {
+            if (a.getType() == AccountType.ASSET) assetsModel.addRow(new Object[]{a.getName(), a.getBalance()});
+            if (a.getType().isLiabilityOrEquity()) liabilitiesModel.addRow(new Object[]{a.getName(), a.getBalance()});
         }
     }
 
-    private double calculateTotalAssets() {
-        double total = 0;
-        for (Map.Entry<String, Double> e : accountBalances.entrySet()) {
-            if (extractType(e.getKey()).equals("Asset")) total += e.getValue();
-        }
-        return total;
+    private long calculateTotalAssets() {
+        return engine.totalBalance(AccountType.ASSET);
     }
 
-    private double calculateTotalLiabilitiesAndEquity() {
-        double total = 0;
-        for (Map.Entry<String, Double> e : accountBalances.entrySet()) {
-            String type = extractType(e.getKey());
-            if (type.equals("Liability") || type.equals("Owner's Equity")) total += e.getValue();
-        }
-        return total;
+    private long calculateTotalLiabilitiesAndEquity() {
+        return engine.totalBalance(AccountType.LIABILITY, AccountType.OWNERS_EQUITY);
     }
 
-    private String fmt(double d) {
-        return String.format("%.2f", d);
+    private String fmt(long cents) {
+        return Money.format(cents);
     }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new AccountingAppPractice().setVisible(true));
     }
-
-    // ------------------------
-    // Transaction class
-    // ------------------------
-    private static class Transaction {
-        Date date;
-        String description, debitAccount, creditAccount;
-        double amount;
-
-        Transaction(Date date, String description, String debitAccount, String creditAccount, double amount) {
-            this.date = date;
-            this.description = description;
-            this.debitAccount = debitAccount;
-            this.creditAccount = creditAccount;
-            this.amount = amount;
-        }
-    }
 }
@@ -0,0 +1,42 @@
+package accounting;
+
+/*
+Account.java
+ - One account in a LedgerEngine's chart: a stable id (its position in the chart), name, type and
+   the balance it opened with
+ - The current balance is changed only under the engine's lock stripe for this id, both legs of a
+   posting together, and may be read from any thread
+*/
+public class Account {
+    private final int id;
+    private final String name;
+    private final AccountType type;
+    private final long openingBalance;
+    private volatile long balance;
+
+    Account(int id, String name, AccountType type, long initialBalance) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.openingBalance = initialBalance;
+        this.balance = initialBalance;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public AccountType getType() { return type; }
+    public long getBalance() { return balance; }
+    public long getOpeningBalance() { return openingBalance; }
+
+    void setBalance(long balance) { this.balance = balance; }
+
+    void applyDebit(long amount) { balance = debited(amount); }
+    void applyCredit(long amount) { balance = credited(amount); }
+
+    // The balance a debit or credit would leave, without applying it.
+    long debited(long amount) { return Money.add(balance, Money.signed(type.debitSign(), amount)); }
+    long credited(long amount) { return Money.add(balance, Money.signed(type.creditSign(), amount)); }
+
+    @Override
+    public String toString() { return name; }
+}
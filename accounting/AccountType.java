@@ -0,0 +1,41 @@
+package accounting;
+
+/*
+AccountType.java
+ - The five account types and the side each one normally carries its balance on
+ - debitSign() is +1 for debit-normal types (Asset, Expense) and -1 for the rest,
+   so posting is balance += debitSign * amount for a debit and -= for a credit
+*/
+public enum AccountType {
+    ASSET("Asset", 1),
+    LIABILITY("Liability", -1),
+    OWNERS_EQUITY("Owner's Equity", -1),
+    REVENUE("Revenue", -1),
+    EXPENSE("Expense", 1);
+
+    private final String label;
+    private final int debitSign;
+
+    AccountType(String label, int debitSign) {
+        this.label = label;
+        this.debitSign = debitSign;
+    }
+
+    public String getLabel() { return label; }
+    public int debitSign() { return debitSign; }
+    public int creditSign() { return -debitSign; }
+    public boolean isDebitNormal() { return debitSign > 0; }
+
+    /** Liabilities and equity share the right-hand side of the balance sheet. */
+    public boolean isLiabilityOrEquity() { return this == LIABILITY || this == OWNERS_EQUITY; }
+
+    @Override
+    public String toString() { return label; }
+
+    public static AccountType fromLabel(String label) {
+        for (AccountType t : values()) {
+            if (t.label.equals(label)) return t;
+        }
+        throw new IllegalArgumentException("Unknown account type: " + label);
+    }
+}
@@ -0,0 +1,232 @@
+package accounting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/*
+BookGenerator.java
+ - Synthetic books for load and scale testing: the same seed, start day and length always give
+   the same postings, across the standard chart every new LedgerEngine book starts with
+ - Postings come in date order, spread evenly over the days, as a running business would make them:
+   an opening capital injection, rent and insurance on the 1st, payroll on the 15th and the last
+   day of the month, depreciation and utilities at month end, and in between cash and credit sales,
+   services, collections, purchases and payments. Revenue follows the seasons, peaking in December
+ - Streams into any PostingSink: LedgerEngine.postAll, or writeCsv for a file importCsv can read
+   (in constant memory, so 100M postings is only a matter of disk)
+ - java accounting.BookGenerator <count> [--seed n] [--from yyyy-MM-dd] [--days n] (--csv <file> | --dir <dataDir>)
+*/
+public class BookGenerator {
+    // Account ids in the standard chart.
+    private static final int CASH = id("Cash");
+    private static final int RECEIVABLE = id("Accounts Receivable");
+    private static final int INVENTORY = id("Inventory");
+    private static final int SUPPLIES = id("Supplies");
+    private static final int PREPAID = id("Prepaid Expenses");
+    private static final int EQUIPMENT = id("Equipment");
+    private static final int PAYABLE = id("Accounts Payable");
+    private static final int CAPITAL = id("Owner's Capital");
+    private static final int SERVICE_REVENUE = id("Service Revenue");
+    private static final int SALES_REVENUE = id("Sales Revenue");
+    private static final int SALARIES = id("Salaries Expense");
+    private static final int RENT = id("Rent Expense");
+    private static final int UTILITIES = id("Utilities Expense");
+    private static final int SUPPLIES_EXPENSE = id("Supplies Expense");
+    private static final int DEPRECIATION = id("Depreciation Expense");
+    private static final int INSURANCE = id("Insurance Expense");
+    private static final int ADVERTISING = id("Advertising Expense");
+
+    // Day-to-day activity: debit, credit, weight, typical amount in cents, whether it is revenue.
+    private static final int[][] DAILY = {
+        {CASH, SALES_REVENUE, 30, 8_500, 1},
+        {RECEIVABLE, SALES_REVENUE, 15, 42_000, 1},
+        {CASH, SERVICE_REVENUE, 15, 25_000, 1},
+        {CASH, RECEIVABLE, 12, 40_000, 0},
+        {INVENTORY, PAYABLE, 5, 120_000, 0},
+        {SUPPLIES, PAYABLE, 8, 9_000, 0},
+        {PAYABLE, CASH, 8, 60_000, 0},
+        {SUPPLIES_EXPENSE, SUPPLIES, 4, 3_500, 0},
+        {ADVERTISING, CASH, 3, 15_000, 0}
+    };
+    private static final String[] DAILY_TEXT = {
+        "Cash sale", "Invoice", "Service call", "Customer receipt", "Stock purchase",
+        "Office supplies", "Supplier payment", "Supplies used", "Online ads"
+    };
+    private static final int TOTAL_WEIGHT;
+    static {
+        int w = 0;
+        for (int[] d : DAILY) w += d[2];
+        TOTAL_WEIGHT = w;
+    }
+
+    private final long seed;
+    private final int firstDay;
+    private final int days;
+
+    // State of one generate() run.
+    private SplittableRandom random;
+    private PostingSink sink;
+    private long remaining;
+    private long invoiceNo;
+    private final StringBuilder text = new StringBuilder(48);
+
+    public BookGenerator(long seed, int firstDay, int days) {
+        if (days <= 0) throw new IllegalArgumentException("Days must be positive: " + days);
+        this.seed = seed;
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    /** Hands count postings to sink, in date order; the same arguments always give the same postings. */
+    public void generate(long count, PostingSink sink) {
+        this.random = new SplittableRandom(seed);
+        this.sink = sink;
+        this.remaining = count;
+        this.invoiceNo = 1000;
+        for (int d = 0; d < days && remaining > 0; d++) {
+            int day = firstDay + d;
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int dom = date.getDayOfMonth();
+            boolean monthEnd = dom == date.lengthOfMonth();
+            String month = Dates.format(day).substring(0, 7);
+
+            if (d == 0) emit(day, CASH, CAPITAL, 25_000_000, "Opening capital");
+            if (dom == 1) {
+                emit(day, RENT, CASH, 450_000, "Rent " + month);
+                emit(day, INSURANCE, PREPAID, 38_000, "Insurance " + month);
+            }
+            if (dom == 15 || monthEnd) emit(day, SALARIES, CASH, 1_250_000 + random.nextInt(50_000), "Payroll " + month);
+            if (monthEnd) {
+                emit(day, DEPRECIATION, EQUIPMENT, 95_000, "Depreciation " + month);
+                emit(day, UTILITIES, CASH, amount(32_000, 1.0), "Utilities " + month);
+            }
+
+            // By the end of day d, (d + 1) / days of the count is out; the last day takes whatever is left.
+            long due = count * (d + 1) / days;
+            double season = season(date.getDayOfYear(), date.getMonthValue());
+            while (count - remaining < due) daily(day, season);
+        }
+        this.sink = null;
+    }
+
+    private void daily(int day, double season) {
+        int pick = random.nextInt(TOTAL_WEIGHT);
+        int i = 0;
+        while (pick >= DAILY[i][2]) pick -= DAILY[i++][2];
+        int[] kind = DAILY[i];
+        text.setLength(0);
+        text.append(DAILY_TEXT[i]);
+        // Invoices are numbered in turn; a receipt settles one of the last fifty.
+        if (kind[0] == RECEIVABLE) text.append(" INV-").append(invoiceNo++);
+        if (kind[1] == RECEIVABLE) text.append(" INV-").append(invoiceNo - 1 - random.nextInt(50));
+        emit(day, kind[0], kind[1], amount(kind[3], kind[4] == 1 ? season : 1.0), text.toString());
+    }
+
+    private void emit(int day, int debitId, int creditId, long amount, String description) {
+        if (remaining <= 0) return;
+        remaining--;
+        sink.posting(day, debitId, creditId, amount, description);
+    }
+
+    // Around typical, skewed the way real amounts are: mostly small, now and then several times larger.
+    private long amount(int typical, double scale) {
+        double factor = Math.exp(random.nextGaussian() * 0.45) * scale;
+        return Math.max(100, Math.round(typical * factor));
+    }
+
+    // Sales run about 30% above the year's average in early summer, below it in winter, and peak in December.
+    private static double season(int dayOfYear, int month) {
+        double s = 1.0 + 0.3 * Math.sin(2 * Math.PI * (dayOfYear - 80) / 365.0);
+        return month == 12 ? s * 1.6 : s;
+    }
+
+    private static int id(String name) {
+        for (int i = 0; i < LedgerEngine.STANDARD_CHART.length; i++) {
+            if (LedgerEngine.STANDARD_CHART[i][0].equals(name)) return i;
+        }
+        throw new IllegalStateException("Not in the standard chart: " + name);
+    }
+
+    /** Checks that the engine's book starts with the standard chart, so the generator's ids mean the same accounts. */
+    public static void checkChart(LedgerEngine engine) {
+        for (int i = 0; i < LedgerEngine.STANDARD_CHART.length; i++) {
+            Account a = engine.account(i);
+            if (a == null || !a.getName().equals(LedgerEngine.STANDARD_CHART[i][0])) {
+                throw new IllegalArgumentException("The book does not start with the standard chart at account " + i);
+            }
+        }
+    }
+
+    /** Writes count postings as date,description,debit,credit,amount lines, the format importCsv reads. */
+    public void writeCsv(long count, Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("date,description,debit,credit,amount");
+            out.newLine();
+            char[] amount = new char[27];
+            try {
+                generate(count, (epochDay, debitId, creditId, cents, description) -> {
+                    try {
+                        out.write(Dates.format(epochDay));
+                        out.write(',');
+                        out.write(description); // generated text never holds a comma or quote
+                        out.write(',');
+                        out.write(LedgerEngine.STANDARD_CHART[debitId][0]);
+                        out.write(',');
+                        out.write(LedgerEngine.STANDARD_CHART[creditId][0]);
+                        out.write(',');
+                        int len = Money.formatTo(cents, amount);
+                        out.write(amount, amount.length - len, len);
+                        out.newLine();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long count = -1;
+        long seed = 42;
+        int from = Dates.parse("2015-01-01");
+        int days = 3650;
+        Path csv = null;
+        Path dir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--from": from = Dates.parse(args[++i]); break;
+                case "--days": days = Integer.parseInt(args[++i]); break;
+                case "--csv": csv = Paths.get(args[++i]); break;
+                case "--dir": dir = Paths.get(args[++i]); break;
+                default: count = Long.parseLong(args[i].replace("_", ""));
+            }
+        }
+        if (count < 0 || (csv == null) == (dir == null)) {
+            System.err.println("Usage: java accounting.BookGenerator <count> [--seed n] [--from yyyy-MM-dd] [--days n] (--csv <file> | --dir <dataDir>)");
+            System.exit(2);
+        }
+        BookGenerator gen = new BookGenerator(seed, from, days);
+        long total = count;
+        long started = System.nanoTime();
+        if (csv != null) {
+            gen.writeCsv(count, csv);
+        } else {
+            try (LedgerEngine engine = LedgerEngine.open(dir)) {
+                checkChart(engine);
+                LedgerEngine.BatchResult r = engine.postAll(sink -> gen.generate(total, sink)).join();
+                if (r.getRejected() > 0) System.err.println(r.getRejected() + " postings were rejected: " + r.getFirstErrors());
+            }
+        }
+        long ms = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        System.out.println("Generated " + count + " postings in " + ms + " ms (" + count * 1000 / ms + "/s)");
+    }
+}
@@ -0,0 +1,69 @@
+package accounting;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Date;
+
+/*
+Dates.java
+ - Posting dates are plain epoch days; this is the one place that turns them into text and back
+ - format() keeps the "yyyy-MM-dd" string of recently shown days in a small direct-mapped cache, so
+   redrawing a table reuses one String per day instead of formatting every cell
+ - parse() takes the same dates the old SimpleDateFormat form did, unpadded months and days such as
+   "2024-2-3" included, but still refuses days that do not exist, like 2024-02-30
+ - Everything here is immutable or safely racy, so any thread may format or parse
+*/
+public final class Dates {
+    public static final DateTimeFormatter FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd").withResolverStyle(ResolverStyle.STRICT);
+    // Single letters take any number of digits, so padded and unpadded input both parse.
+    private static final DateTimeFormatter PARSE =
+            DateTimeFormatter.ofPattern("u-M-d").withResolverStyle(ResolverStyle.STRICT);
+
+    // A power of two; 4096 consecutive days (about eleven years) never evict each other.
+    private static final int CACHE_SIZE = 4096;
+    private static final Formatted[] cache = new Formatted[CACHE_SIZE];
+
+    /** Immutable, so publishing it through the cache without a lock is safe. */
+    private static final class Formatted {
+        final int epochDay;
+        final String text;
+
+        Formatted(int epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+
+    private Dates() {}
+
+    public static String format(int epochDay) {
+        int slot = epochDay & (CACHE_SIZE - 1);
+        Formatted f = cache[slot];
+        if (f == null || f.epochDay != epochDay) {
+            f = new Formatted(epochDay, FORMAT.format(LocalDate.ofEpochDay(epochDay)));
+            cache[slot] = f;
+        }
+        return f.text;
+    }
+
+    /** Parses "yyyy-MM-dd", zero padding optional; throws DateTimeParseException for anything else. */
+    public static int parse(String text) {
+        return (int) LocalDate.parse(text.trim(), PARSE).toEpochDay();
+    }
+
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    /** The local day a java.util.Date (as from a date spinner) falls on. */
+    public static int fromDate(Date date) {
+        return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    public static Date toDate(int epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,90 @@
+package accounting;
+
+import java.util.Arrays;
+
+/*
+HeapTransactionStore.java
+ - The default TransactionStore: one primitive array per column on the Java heap
+ - Descriptions are dictionary-encoded through a StringPool, so each distinct one is kept once
+ - About 24 bytes a row plus each distinct description, instead of a Date, three Strings and a
+   wrapper object per posting; scans walk plain arrays
+ - Rows are written before the size that covers them is published, and grown columns are swapped
+   in whole, so readers need no lock
+*/
+class HeapTransactionStore extends TransactionStore {
+    /** The columns as of one moment; rows below {@code size} never change. */
+    private static final class Columns {
+        final int[] day;
+        final int[] debit;
+        final int[] credit;
+        final long[] amount;
+        final int[] description;
+
+        Columns(int capacity) {
+            this(new int[capacity], new int[capacity], new int[capacity], new long[capacity], new int[capacity]);
+        }
+
+        private Columns(int[] day, int[] debit, int[] credit, long[] amount, int[] description) {
+            this.day = day;
+            this.debit = debit;
+            this.credit = credit;
+            this.amount = amount;
+            this.description = description;
+        }
+
+        Columns grow(int capacity) {
+            return new Columns(Arrays.copyOf(day, capacity), Arrays.copyOf(debit, capacity), Arrays.copyOf(credit, capacity),
+                    Arrays.copyOf(amount, capacity), Arrays.copyOf(description, capacity));
+        }
+    }
+
+    private final StringPool descriptions = new StringPool();
+    private volatile Columns columns = new Columns(1024);
+    private volatile int size;
+
+    @Override
+    public int append(int epochDay, int debitId, int creditId, long amount, String description) {
+        int seq = size;
+        Columns c = columns;
+        if (seq == c.day.length) {
+            c = c.grow(seq * 2);
+            columns = c;
+        }
+        c.day[seq] = epochDay;
+        c.debit[seq] = debitId;
+        c.credit[seq] = creditId;
+        c.amount[seq] = amount;
+        c.description[seq] = descriptions.intern(description == null ? "" : description);
+        size = seq + 1;
+        return seq;
+    }
+
+    @Override public int size() { return size; }
+
+    @Override public int epochDay(int seq) { return row(seq).day[seq]; }
+    @Override public int debitId(int seq) { return row(seq).debit[seq]; }
+    @Override public int creditId(int seq) { return row(seq).credit[seq]; }
+    @Override public long amount(int seq) { return row(seq).amount[seq]; }
+    @Override public String description(int seq) { return descriptions.get(row(seq).description[seq]); }
+
+    @Override
+    public void forEach(int from, int to, RowVisitor visitor) {
+        checkRange(from, to);
+        Columns c = columns;
+        int[] day = c.day, debit = c.debit, credit = c.credit;
+        long[] amount = c.amount;
+        for (int i = from; i < to; i++) visitor.row(i, day[i], debit[i], credit[i], amount[i]);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        columns = new Columns(1024);
+        descriptions.clear();
+    }
+
+    private Columns row(int seq) {
+        if (seq < 0 || seq >= size) throw new IndexOutOfBoundsException("Seq: " + seq + ", Size: " + size);
+        return columns;
+    }
+}
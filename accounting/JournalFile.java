@@ -0,0 +1,293 @@
+package accounting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+JournalFile.java
+ - Append-only book on disk: journal.dat holds fixed-width records, journal.txt holds their text
+ - A record is either an account being opened or a posting between two account ids
+ - Each record ends with a CRC32 of its other bytes; a torn record at the tail is cut off on open,
+   as are tail records whose text never reached journal.txt
+ - Appends go through small write buffers that sync() (or every append, by default) pushes to disk;
+   syncPostings() lets several appending threads share one sync
+ - sync() holds the append lock only to flush the buffers; the slow force() to disk runs outside
+   it, so other threads keep appending while one waits on the disk
+ - replay() memory-maps both files and hands records to a Visitor in write order
+
+ Record layout (little-endian, RECORD_SIZE bytes):
+   0  int  kind          ACCOUNT or POSTING
+   4  int  type / day    AccountType ordinal, or the posting date as an epoch day
+   8  int  account id    the account opened, or the debit account
+  12  int  credit id     posting only
+  16  long amount        initial balance or posting amount, in cents
+  24  long text offset   where the name / description starts in journal.txt
+  32  int  text length   in UTF-8 bytes
+  36  int  crc           CRC32 of bytes 0..35
+*/
+public class JournalFile implements Closeable {
+    public static final int RECORD_SIZE = 40;
+    public static final int ACCOUNT = 1;
+    public static final int POSTING = 2;
+
+    private static final int CRC_OFFSET = 36;
+    // Largest mapping that still fits an int index and holds whole records.
+    private static final long MAX_SEGMENT = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+    /** Receives records in the order they were written. */
+    public interface Visitor {
+        void account(int id, AccountType type, long initialBalance, String name) throws IOException;
+        void posting(long record, int epochDay, int debitId, int creditId, long amount, String description) throws IOException;
+    }
+
+    private final FileChannel records;
+    private final FileChannel text;
+    private final ByteBuffer recordBuf = ByteBuffer.allocate(RECORD_SIZE * 4096).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer textBuf = ByteBuffer.allocate(256 * 1024);
+    private final CRC32 crc = new CRC32();
+    // Taken before this object's monitor, never after; one thread forces while others append.
+    private final Object forceLock = new Object();
+    private boolean syncOnWrite = true;
+    private long recordCount;
+    private long postingCount;
+    private volatile long syncedPostings;
+    private long flushedRecords;
+    private long textEnd;
+
+    public JournalFile(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        records = FileChannel.open(dir.resolve("journal.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        text = FileChannel.open(dir.resolve("journal.txt"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recoverTail();
+        flushedRecords = recordCount;
+        syncedPostings = postingCount;
+        textEnd = text.size();
+    }
+
+    /** Forcing every append to disk is the safe default; bulk writers can turn it off and call sync() once. */
+    public void setSyncOnWrite(boolean syncOnWrite) {
+        this.syncOnWrite = syncOnWrite;
+    }
+
+    public long getRecordCount() { return recordCount; }
+    public long getPostingCount() { return postingCount; }
+    public boolean isEmpty() { return recordCount == 0; }
+
+    public synchronized void appendAccount(int id, AccountType type, long initialBalance, String name) throws IOException {
+        append(ACCOUNT, type.ordinal(), id, 0, initialBalance, name);
+    }
+
+    public synchronized void appendPosting(int epochDay, int debitId, int creditId, long amount, String description) throws IOException {
+        append(POSTING, epochDay, debitId, creditId, amount, description);
+    }
+
+    private void append(int kind, int a, int b, int c, long amount, String s) throws IOException {
+        byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > textBuf.remaining() || recordBuf.remaining() < RECORD_SIZE) flush();
+        long textOffset = textEnd;
+        if (bytes.length > textBuf.remaining()) {
+            writeFully(text, ByteBuffer.wrap(bytes), textOffset);
+        } else {
+            textBuf.put(bytes);
+        }
+        textEnd += bytes.length;
+
+        int start = recordBuf.position();
+        recordBuf.putInt(kind).putInt(a).putInt(b).putInt(c).putLong(amount).putLong(textOffset).putInt(bytes.length);
+        crc.reset();
+        crc.update(recordBuf.array(), start, CRC_OFFSET);
+        recordBuf.putInt((int) crc.getValue());
+        recordCount++;
+        if (kind == POSTING) postingCount++;
+        if (syncOnWrite) {
+            // Already holding the monitor, so force here rather than through sync().
+            flush();
+            force();
+            syncedPostings = postingCount;
+        }
+    }
+
+    // Text goes out before the records that point into it.
+    private void flush() throws IOException {
+        if (textBuf.position() > 0) {
+            textBuf.flip();
+            writeFully(text, textBuf, textEnd - textBuf.remaining());
+            textBuf.clear();
+        }
+        if (recordBuf.position() > 0) {
+            recordBuf.flip();
+            writeFully(records, recordBuf, flushedRecords * RECORD_SIZE);
+            recordBuf.clear();
+            flushedRecords = recordCount;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer src, long pos) throws IOException {
+        while (src.hasRemaining()) pos += channel.write(src, pos);
+    }
+
+    private void force() throws IOException {
+        text.force(false);
+        records.force(false);
+    }
+
+    /** Makes everything appended so far durable; appends from other threads carry on during the force. */
+    public void sync() throws IOException {
+        synchronized (forceLock) {
+            long flushed;
+            synchronized (this) {
+                flush();
+                flushed = postingCount;
+            }
+            force();
+            if (flushed > syncedPostings) syncedPostings = flushed;
+        }
+    }
+
+    /** Makes the first count postings durable, unless a sync since they were appended already did. */
+    public void syncPostings(long count) throws IOException {
+        if (syncedPostings >= count) return;
+        synchronized (forceLock) {
+            if (syncedPostings < count) sync();
+        }
+    }
+
+    /** Replays records fromRecord (inclusive) to toRecord (exclusive); returns how many were visited. */
+    public synchronized long replay(long fromRecord, long toRecord, Visitor visitor) throws IOException {
+        flush();
+        toRecord = Math.min(toRecord, recordCount);
+        if (fromRecord >= toRecord) return 0;
+        long end = toRecord * RECORD_SIZE;
+        long pos = fromRecord * RECORD_SIZE;
+        TextReader names = new TextReader(text);
+        while (pos < end) {
+            long len = Math.min(MAX_SEGMENT, end - pos);
+            MappedByteBuffer seg = records.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            seg.order(ByteOrder.LITTLE_ENDIAN);
+            for (int off = 0; off < len; off += RECORD_SIZE) {
+                int kind = seg.getInt(off);
+                int a = seg.getInt(off + 4);
+                int b = seg.getInt(off + 8);
+                int c = seg.getInt(off + 12);
+                long amount = seg.getLong(off + 16);
+                String s = names.read(seg.getLong(off + 24), seg.getInt(off + 32));
+                if (kind == ACCOUNT) {
+                    visitor.account(b, AccountType.values()[a], amount, s);
+                } else {
+                    visitor.posting((pos + off) / RECORD_SIZE, a, b, c, amount, s);
+                }
+            }
+            pos += len;
+        }
+        return toRecord - fromRecord;
+    }
+
+    public long replay(Visitor visitor) throws IOException {
+        return replay(0, recordCount, visitor);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            synchronized (this) {
+                try {
+                    sync();
+                } finally {
+                    try {
+                        records.close();
+                    } finally {
+                        text.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     Checks every record's CRC; a bad or partial record is only tolerated as the very last one.
+     Text is written before its records but neither is forced until sync(), so after a crash records
+     can reach the disk without their text. Offsets only grow, so the first record whose text runs
+     past the end of journal.txt starts a torn tail, and it and everything after it are cut off.
+    */
+    private void recoverTail() throws IOException {
+        long size = records.size();
+        long textSize = text.size();
+        long whole = size / RECORD_SIZE;
+        long valid = 0;
+        long postings = 0;
+        byte[] buf = new byte[RECORD_SIZE];
+        long pos = 0;
+        while (pos < whole * RECORD_SIZE) {
+            long len = Math.min(MAX_SEGMENT, whole * RECORD_SIZE - pos);
+            MappedByteBuffer seg = records.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            seg.order(ByteOrder.LITTLE_ENDIAN);
+            for (int off = 0; off < len; off += RECORD_SIZE) {
+                seg.get(off, buf, 0, RECORD_SIZE);
+                crc.reset();
+                crc.update(buf, 0, CRC_OFFSET);
+                if ((int) crc.getValue() != seg.getInt(off + CRC_OFFSET)) {
+                    if (valid + 1 < whole) {
+                        throw new IOException("Journal record " + valid + " is corrupt (checksum mismatch)");
+                    }
+                    break;
+                }
+                long textOffset = seg.getLong(off + 24);
+                int textLength = seg.getInt(off + 32);
+                if (textOffset < 0 || textLength < 0 || textOffset + textLength > textSize) {
+                    whole = valid;
+                    break;
+                }
+                if (seg.getInt(off) == POSTING) postings++;
+                valid++;
+            }
+            pos += len;
+        }
+        if (valid * RECORD_SIZE != size) {
+            records.truncate(valid * RECORD_SIZE);
+            records.force(false);
+        }
+        recordCount = valid;
+        postingCount = postings;
+    }
+
+    /** Reads names and descriptions out of journal.txt, mapping it once when it fits in one buffer. */
+    private static class TextReader {
+        private final FileChannel channel;
+        private final MappedByteBuffer mapped;
+
+        TextReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            long size = channel.size();
+            this.mapped = size > 0 && size <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+        }
+
+        String read(long offset, int length) throws IOException {
+            if (length == 0) return "";
+            if (offset < 0 || length < 0 || offset + length > channel.size()) {
+                throw new IOException("Journal text is truncated at offset " + offset);
+            }
+            byte[] bytes = new byte[length];
+            if (mapped != null) {
+                mapped.get((int) offset, bytes, 0, length);
+            } else {
+                ByteBuffer dst = ByteBuffer.wrap(bytes);
+                while (dst.hasRemaining()) {
+                    if (channel.read(dst, offset + dst.position()) < 0) throw new IOException("Journal text is truncated");
+                }
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package accounting;
+
+/** Seqs at positions of the engine's journal (date) order, fetched a page at a time. EDT only. */
+final class JournalRows {
+    private static final int PAGE = 256;
+    private final LedgerEngine engine;
+    private int[] page = new int[0];
+    private int pageStart = -1;
+
+    JournalRows(LedgerEngine engine) { this.engine = engine; }
+
+    int seqAt(int position) {
+        if (pageStart < 0 || position < pageStart || position >= pageStart + page.length) {
+            pageStart = position - position % PAGE;
+            page = engine.journal(Integer.MIN_VALUE, Integer.MAX_VALUE, pageStart, PAGE);
+        }
+        return page[position - pageStart];
+    }
+
+    // Rows shift under a back-dated posting, so any posting makes the cached page stale.
+    void clear() { pageStart = -1; }
+}
@@ -0,0 +1,53 @@
+package accounting;
+
+/*
+JournalTableModel.java
+ - The general journal: two rows per posting in date order, the debit leg at 2 * position and the
+   credit leg right after it
+ - Reads its rows off the engine's date index a page at a time; EDT only
+*/
+public class JournalTableModel extends ReadOnlyTableModel {
+    private final LedgerEngine engine;
+    private final JournalRows journal;
+    private int rows;
+
+    public JournalTableModel(LedgerEngine engine) {
+        super("Date", "Description", "Account", "Debit", "Credit");
+        this.engine = engine;
+        this.journal = new JournalRows(engine);
+        this.rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int getRowCount() { return rows * 2; }
+
+    public Object getValueAt(int r, int c) {
+        int seq = journal.seqAt(r / 2);
+        boolean debitLeg = r % 2 == 0;
+        switch (c) {
+            case 0: return Dates.format(engine.epochDay(seq));
+            case 1: return engine.description(seq);
+            case 2: return engine.account(debitLeg ? engine.debitId(seq) : engine.creditId(seq)).getName();
+            case 3: return debitLeg ? Long.valueOf(engine.amount(seq)) : null;
+            default: return debitLeg ? null : Long.valueOf(engine.amount(seq));
+        }
+    }
+
+    public Class<?> getColumnClass(int c) { return c >= 3 ? Long.class : String.class; }
+
+    /** Patches in posting seq, which the engine has already indexed. */
+    public void transactionPosted(int seq) {
+        int before = rows;
+        rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        journal.clear();
+        int index = insertedAt(engine.journalCount(Integer.MIN_VALUE, engine.epochDay(seq)), rows);
+        if (rows == before + 1) fireTableRowsInserted(2 * index, 2 * index + 1);
+        else if (rows == before) fireTableRowsUpdated(2 * index, 2 * rows - 1);
+        else fireTableDataChanged();
+    }
+
+    public void refresh() {
+        rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        journal.clear();
+        fireTableDataChanged();
+    }
+}
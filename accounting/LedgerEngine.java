@@ -0,0 +1,977 @@
+package accounting;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/*
+LedgerEngine.java
+ - The book without a window: chart of accounts, posting rules, journal and snapshots, balances,
+   per-account ledgers and period reports, for a Swing frame, a server or a batch job alike
+ - Every change (post, postBatch, importCsv, postAll, addAccount) runs on one ledger-writer thread in
+   submission order and completes a CompletableFuture; callers may wait on it or not
+ - postNow() posts on the caller's thread instead, from any number of clerks and feeds at once and
+   alongside the writer. Parsing, checks, history indexing and the journal sync run in parallel.
+   A posting takes the lock stripes of its two accounts (lower stripe first), and only then the
+   short sequencer lock that gives it its journal record and row; both balances change before the
+   stripes are released, so no reader ever sees a debit without its credit
+ - Queries are safe from any thread while postings go on: balances are read without a lock (or all
+   at one instant through balances()), ledgers, the journal in date order and as-of balances under
+   a read lock on the date indexes, which hold one long per entry and never box a row
+ - Listeners are told about each run of new rows once they are applied, in row order
+ - Throughput target: 250,000 postings/s through postBatch or importCsv (the journal is synced once
+   per batch) for postings arriving roughly in date order, and a trial balance over 10M postings in
+   under 100 ms on four cores. A back-dated posting shifts the later entries of its two accounts'
+   histories, and a lone post() syncs the journal before it completes, so its rate is set by the
+   disk's fsync latency instead
+ - Headless use: java accounting.LedgerEngine import <file.csv> | balances [-Daccounting.dir=...]
+*/
+public class LedgerEngine implements AutoCloseable {
+    private static final int MAX_REPORTED_ERRORS = 20;
+    // postAll tells listeners about its rows in runs of this many, so views keep up with a long stream.
+    private static final int STREAM_NOTICE_ROWS = 65_536;
+
+    // Every new book starts with these accounts, so their ids are the same in every book.
+    static final String[][] STANDARD_CHART = {
+        {"Cash", "Asset"},
+        {"Accounts Receivable", "Asset"},
+        {"Inventory", "Asset"},
+        {"Supplies", "Asset"},
+        {"Prepaid Expenses", "Asset"},
+        {"Equipment", "Asset"},
+        {"Furniture and Fixtures", "Asset"},
+        {"Land", "Asset"},
+        {"Buildings", "Asset"},
+        {"Accounts Payable", "Liability"},
+        {"Notes Payable", "Liability"},
+        {"Salaries Payable", "Liability"},
+        {"Rent Payable", "Liability"},
+        {"Interest Payable", "Liability"},
+        {"Unearned Revenue", "Liability"},
+        {"Owner's Capital", "Owner's Equity"},
+        {"Owner's Drawing", "Owner's Equity"},
+        {"Service Revenue", "Revenue"},
+        {"Sales Revenue", "Revenue"},
+        {"Interest Income", "Revenue"},
+        {"Salaries Expense", "Expense"},
+        {"Rent Expense", "Expense"},
+        {"Utilities Expense", "Expense"},
+        {"Supplies Expense", "Expense"},
+        {"Depreciation Expense", "Expense"},
+        {"Insurance Expense", "Expense"},
+        {"Advertising Expense", "Expense"}
+    };
+
+    /** Told that rows fromSeq (inclusive) to toSeq (exclusive) were posted; runs come in row order, on a posting thread. */
+    public interface PostingListener {
+        void posted(int fromSeq, int toSeq);
+    }
+
+    /** Raw input for one posting, as typed or read from a file; parsed and validated on the thread that posts it. */
+    public static class PostingRequest {
+        final String date, description, debitAccount, creditAccount, amount;
+
+        public PostingRequest(String date, String description, String debitAccount, String creditAccount, String amount) {
+            this.date = date;
+            this.description = description;
+            this.debitAccount = debitAccount;
+            this.creditAccount = creditAccount;
+            this.amount = amount;
+        }
+    }
+
+    /** Outcome of a batch or CSV import: rows posted, rows refused, and where the full list of refusals was written. */
+    public static class BatchResult {
+        private long posted;
+        private long rejected;
+        private final List<String> firstErrors = new ArrayList<>();
+        private Path errorFile;
+
+        public long getPosted() { return posted; }
+        public long getRejected() { return rejected; }
+        public List<String> getFirstErrors() { return Collections.unmodifiableList(firstErrors); }
+        /** Null unless the refusals were also written to a file. */
+        public Path getErrorFile() { return errorFile; }
+
+        private void reject(String message) {
+            rejected++;
+            if (firstErrors.size() < MAX_REPORTED_ERRORS) firstErrors.add(message);
+        }
+    }
+
+    /** One posting as it appears in an account's ledger, with the account's balance just after it. */
+    public static class LedgerLine {
+        private final int seq;
+        private final int epochDay;
+        private final int debitId;
+        private final int creditId;
+        private final long amount;
+        private final String description;
+        private final long balance;
+
+        LedgerLine(int seq, int epochDay, int debitId, int creditId, long amount, String description, long balance) {
+            this.seq = seq;
+            this.epochDay = epochDay;
+            this.debitId = debitId;
+            this.creditId = creditId;
+            this.amount = amount;
+            this.description = description;
+            this.balance = balance;
+        }
+
+        public int getSeq() { return seq; }
+        public int getEpochDay() { return epochDay; }
+        public int getDebitId() { return debitId; }
+        public int getCreditId() { return creditId; }
+        public long getAmount() { return amount; }
+        public String getDescription() { return description; }
+        /** Opening balance plus every posting up to and including this one. */
+        public long getBalance() { return balance; }
+    }
+
+    /**
+     Chart of accounts indexed by id and by name, with each type's accounts grouped in creation order.
+     Registration is rare and comes from the writer thread, so readers elsewhere see copy-on-write lists.
+    */
+    private static class AccountRegistry {
+        private final List<Account> byId = new CopyOnWriteArrayList<>();
+        private final Map<String, Account> byName = new ConcurrentHashMap<>();
+        private final Map<AccountType, List<Account>> byType = new EnumMap<>(AccountType.class);
+
+        AccountRegistry() {
+            for (AccountType t : AccountType.values()) byType.put(t, new CopyOnWriteArrayList<>());
+        }
+
+        synchronized Account register(String name, AccountType type, long initialBalance) {
+            Account a = new Account(byId.size(), name, type, initialBalance);
+            byId.add(a);
+            byName.put(name, a);
+            byType.get(type).add(a);
+            return a;
+        }
+
+        synchronized void clear() {
+            byId.clear();
+            byName.clear();
+            for (List<Account> l : byType.values()) l.clear();
+        }
+
+        Account get(int id) { return id >= 0 && id < byId.size() ? byId.get(id) : null; }
+        Account get(String name) { return byName.get(name); }
+        List<Account> all() { return Collections.unmodifiableList(byId); }
+        List<Account> ofType(AccountType type) { return Collections.unmodifiableList(byType.get(type)); }
+        int size() { return byId.size(); }
+    }
+
+    /**
+     One account's postings in date order, with each one's effect on its balance as prefix sums.
+     Keyed by day and then row, so postings indexed out of turn by concurrent posters still sort by entry.
+    */
+    private static class AccountHistory {
+        private final int account;
+        private final int debitSign;
+        private final TransactionLog seqs = new TransactionLog();
+        private final PrefixSums deltas = new PrefixSums();
+
+        AccountHistory(Account a) {
+            this.account = a.getId();
+            this.debitSign = a.getType().debitSign();
+        }
+
+        void insert(int epochDay, int seq, int debitId, long amount) {
+            int row = seqs.insert(epochDay, seq);
+            deltas.insert(row, Money.signed(debitId == account ? debitSign : -debitSign, amount));
+        }
+    }
+
+    private final AccountRegistry accounts = new AccountRegistry();
+    // Every posting as primitive columns; appended by the writer (or replay), read anywhere.
+    private final TransactionStore store = TransactionStore.create(Boolean.getBoolean("accounting.offHeapStore"));
+    private final JournalFile journal; // null when the book is kept in memory only
+    private final SnapshotFile snapshots;
+    private volatile long lastSnapshotRecords;
+    // Journal records between balance snapshots; -Daccounting.snapshotInterval overrides it.
+    private final long snapshotInterval = Long.getLong("accounting.snapshotInterval", 10_000);
+    private String snapshotMismatch;
+
+    // Indexed by account id; guarded by historyLock.
+    private final List<AccountHistory> histories = new ArrayList<>();
+    // Every posting in date order, as the journal lists them; guarded by historyLock.
+    private final TransactionLog byDate = new TransactionLog();
+    private final ReadWriteLock historyLock = new ReentrantReadWriteLock();
+
+    // Balance locks, by account id; a posting holds the stripes of both its accounts.
+    private static final int STRIPES = 64;
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    // Gives each posting its journal record and its row in the same order; also held for snapshots.
+    private final ReentrantLock sequencer = new ReentrantLock();
+
+    // Rows below published are fully applied, rows below announced have been told to listeners;
+    // a row finished ahead of an earlier one waits in finishedEarly. Guarded by publishLock.
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Condition caughtUp = publishLock.newCondition();
+    private final BitSet finishedEarly = new BitSet();
+    private volatile int published;
+    private int announced;
+
+    private final List<PostingListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Everything that changes the book runs on this one thread, in submission order.
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ledger-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private LedgerEngine(JournalFile journal, SnapshotFile snapshots) {
+        this.journal = journal;
+        this.snapshots = snapshots;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new StampedLock();
+    }
+
+    /** Where the book is kept unless -Daccounting.dir says otherwise. */
+    public static Path defaultDir() {
+        return Paths.get(System.getProperty("accounting.dir", System.getProperty("user.home") + "/.accountingapp"));
+    }
+
+    /** Opens the journal in dir: a new one starts with the standard chart, an existing one is replayed. */
+    public static LedgerEngine open(Path dir) throws IOException {
+        JournalFile journal = new JournalFile(dir);
+        LedgerEngine engine = new LedgerEngine(journal, new SnapshotFile(dir));
+        try {
+            // The engine syncs once per posting or batch itself, so concurrent posters can share a sync.
+            journal.setSyncOnWrite(false);
+            if (journal.isEmpty()) {
+                for (String[] acc : STANDARD_CHART) {
+                    Account a = engine.register(acc[0], AccountType.fromLabel(acc[1]), 0);
+                    journal.appendAccount(a.getId(), a.getType(), a.getBalance(), a.getName());
+                }
+                journal.sync();
+            } else {
+                engine.replayJournal();
+            }
+        } catch (IOException | RuntimeException ex) {
+            engine.writer.shutdown();
+            journal.close();
+            throw ex;
+        }
+        return engine;
+    }
+
+    /** A book with the standard chart that is never written to disk. */
+    public static LedgerEngine inMemory() {
+        LedgerEngine engine = new LedgerEngine(null, null);
+        for (String[] acc : STANDARD_CHART) engine.register(acc[0], AccountType.fromLabel(acc[1]), 0);
+        return engine;
+    }
+
+    // Records the snapshot covers only rebuild the accounts and history; their balances come from the snapshot.
+    private void replayJournal() throws IOException {
+        SnapshotFile.Snapshot snap = snapshots.read(journal.getRecordCount());
+        long covered = snap == null ? 0 : snap.getJournalRecords();
+        journal.replay(0, covered, new JournalReplay(false));
+        if (snap != null && snap.getAccountCount() == accounts.size()) {
+            for (Account a : accounts.all()) a.setBalance(snap.getBalance(a.getId()));
+        } else if (snap != null) {
+            // Written against a different journal, so it cannot be trusted: replay everything.
+            accounts.clear();
+            store.clear();
+            histories.clear();
+            byDate.clear();
+            covered = 0;
+        }
+        journal.replay(covered, journal.getRecordCount(), new JournalReplay(true));
+        lastSnapshotRecords = covered;
+        published = announced = store.size();
+
+        if (Boolean.getBoolean("accounting.snapshot.verify")) {
+            snapshotMismatch = verifyAgainstFullReplay();
+            if (snapshotMismatch != null) {
+                // The balances were corrected from the journal; the next snapshot must not build on the bad one.
+                lastSnapshotRecords = 0;
+                System.err.print("Snapshot verification failed, using full replay balances:\n" + snapshotMismatch);
+            }
+        }
+        maybeWriteSnapshot();
+    }
+
+    private class JournalReplay implements JournalFile.Visitor {
+        private final boolean applyBalances;
+
+        JournalReplay(boolean applyBalances) { this.applyBalances = applyBalances; }
+
+        public void account(int id, AccountType type, long initialBalance, String name) throws IOException {
+            Account a = register(name, type, initialBalance);
+            if (a.getId() != id) throw new IOException("Journal account ids are out of order at " + name);
+        }
+
+        public void posting(long record, int epochDay, int debitId, int creditId, long amount, String description) throws IOException {
+            Account debitAcc = accounts.get(debitId);
+            Account creditAcc = accounts.get(creditId);
+            if (debitAcc == null || creditAcc == null) throw new IOException("Journal record " + record + " names an unknown account");
+            if (applyBalances) {
+                debitAcc.applyDebit(amount);
+                creditAcc.applyCredit(amount);
+            }
+            index(store.append(epochDay, debitId, creditId, amount, description));
+        }
+    }
+
+    // -Daccounting.snapshot.verify=true: recompute every balance from the whole journal, take the
+    // replayed one wherever they differ, and return the differences, or null when there are none.
+    private String verifyAgainstFullReplay() throws IOException {
+        long[] expected = new long[accounts.size()];
+        AccountType[] types = new AccountType[accounts.size()];
+        journal.replay(new JournalFile.Visitor() {
+            public void account(int id, AccountType type, long initialBalance, String name) {
+                types[id] = type;
+                expected[id] = initialBalance;
+            }
+
+            public void posting(long record, int epochDay, int debitId, int creditId, long amount, String description) {
+                expected[debitId] = Money.add(expected[debitId], Money.signed(types[debitId].debitSign(), amount));
+                expected[creditId] = Money.add(expected[creditId], Money.signed(types[creditId].creditSign(), amount));
+            }
+        });
+        StringBuilder diffs = new StringBuilder();
+        for (Account a : accounts.all()) {
+            if (a.getBalance() != expected[a.getId()]) {
+                diffs.append(a.getName()).append(": snapshot ").append(Money.format(a.getBalance()))
+                        .append(", full replay ").append(Money.format(expected[a.getId()])).append('\n');
+                a.setBalance(expected[a.getId()]);
+            }
+        }
+        return diffs.length() > 0 ? diffs.toString() : null;
+    }
+
+    /** What a failed -Daccounting.snapshot.verify check found at open, or null. */
+    public String getSnapshotMismatch() { return snapshotMismatch; }
+
+    public void addListener(PostingListener l) { listeners.add(l); }
+    public void removeListener(PostingListener l) { listeners.remove(l); }
+
+    // ---- changes: each runs on the writer thread ----
+
+    /** Posts one transaction; completes with its sequence number once it is journaled and applied. */
+    public CompletableFuture<Integer> post(PostingRequest req) {
+        return submit(() -> postNow(req));
+    }
+
+    /**
+     Posts one transaction on the calling thread and returns its sequence number once it is applied
+     and on disk. Any number of threads may call it at once; postings between different accounts
+     only meet on the sequencer, and a sync one of them makes covers the others waiting on it.
+    */
+    public int postNow(PostingRequest req) throws PostingException {
+        int seq = apply(req);
+        try {
+            if (journal != null) journal.syncPostings(seq + 1);
+        } catch (IOException ex) {
+            throw new PostingException("The transaction was applied but could not be saved: " + ex.getMessage());
+        } finally {
+            announce();
+        }
+        maybeWriteSnapshot();
+        return seq;
+    }
+
+    /** Posts each request through the same checks as post(), syncing the journal once for the lot. */
+    public CompletableFuture<BatchResult> postBatch(List<PostingRequest> reqs) {
+        return submit(() -> {
+            BatchResult result = new BatchResult();
+            try {
+                for (int i = 0; i < reqs.size(); i++) {
+                    try {
+                        apply(reqs.get(i));
+                        result.posted++;
+                    } catch (PostingException ex) {
+                        result.reject("Row " + (i + 1) + ": " + ex.getMessage());
+                    }
+                }
+            } finally {
+                finishBatch();
+            }
+            return result;
+        });
+    }
+
+    /*
+     Streams date,description,debit,credit,amount rows (an optional header row is skipped) through
+     postBatch's checks. Refused rows are also written next to the file as <name>.errors.txt.
+    */
+    public CompletableFuture<BatchResult> importCsv(Path file) {
+        return submit(() -> {
+            BatchResult result = new BatchResult();
+            Path errorPath = file.resolveSibling(file.getFileName() + ".errors.txt");
+            BufferedWriter errors = null;
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                long lineNo = 0;
+                while ((line = in.readLine()) != null) {
+                    lineNo++;
+                    if (line.trim().isEmpty()) continue;
+                    List<String> f = parseCsvLine(line);
+                    if (lineNo == 1 && f.get(0).trim().equalsIgnoreCase("date")) continue;
+                    try {
+                        if (f.size() != 5) {
+                            throw new PostingException("Expected 5 columns (date, description, debit, credit, amount), found " + f.size() + ".");
+                        }
+                        apply(new PostingRequest(f.get(0).trim(), f.get(1).trim(), f.get(2).trim(), f.get(3).trim(), f.get(4).trim()));
+                        result.posted++;
+                    } catch (PostingException ex) {
+                        String msg = "Line " + lineNo + ": " + ex.getMessage();
+                        result.reject(msg);
+                        if (errors == null) {
+                            errors = Files.newBufferedWriter(errorPath, StandardCharsets.UTF_8);
+                            result.errorFile = errorPath;
+                        }
+                        errors.write(msg);
+                        errors.newLine();
+                    }
+                }
+            } catch (IOException ex) {
+                throw new PostingException("Import stopped after " + result.posted + " rows: " + ex.getMessage());
+            } finally {
+                try {
+                    if (errors != null) errors.close();
+                } catch (IOException ex) {
+                    System.err.println("Could not write " + errorPath + ": " + ex.getMessage());
+                }
+                // Whatever was applied is announced, even if the import stopped part way.
+                finishBatch();
+            }
+            return result;
+        });
+    }
+
+    /**
+     Runs source on the writer thread; each posting it hands the sink goes through post()'s checks
+     and is journaled and applied, with one journal sync at the end. Meant for generated or
+     converted books, where the postings are already typed and text would only be parsed again.
+    */
+    public CompletableFuture<BatchResult> postAll(Consumer<PostingSink> source) {
+        return submit(() -> {
+            BatchResult result = new BatchResult();
+            try {
+                source.accept((epochDay, debitId, creditId, amount, description) -> {
+                    try {
+                        apply(epochDay, accounts.get(debitId), accounts.get(creditId), amount, description);
+                        result.posted++;
+                    } catch (PostingException ex) {
+                        result.reject("Posting " + (result.posted + result.rejected + 1) + ": " + ex.getMessage());
+                    }
+                    if ((result.posted + result.rejected) % STREAM_NOTICE_ROWS == 0) announce();
+                });
+            } finally {
+                finishBatch();
+            }
+            return result;
+        });
+    }
+
+    public CompletableFuture<Account> addAccount(String name, AccountType type, long initialBalance) {
+        return submit(() -> {
+            if (name == null || name.trim().isEmpty()) throw new PostingException("Enter account name.");
+            if (type == null) throw new PostingException("Select an account type.");
+            if (accounts.get(name) != null) throw new PostingException("An account with this name already exists.");
+            Account a;
+            // Under the sequencer, so a snapshot never counts the record without the account.
+            sequencer.lock();
+            try {
+                if (journal != null) journal.appendAccount(accounts.size(), type, initialBalance, name);
+                a = register(name, type, initialBalance);
+            } catch (IOException ex) {
+                throw new PostingException("Could not save the account: " + ex.getMessage());
+            } finally {
+                sequencer.unlock();
+            }
+            try {
+                if (journal != null) journal.sync();
+            } catch (IOException ex) {
+                throw new PostingException("The account was added but could not be saved: " + ex.getMessage());
+            }
+            maybeWriteSnapshot();
+            return a;
+        });
+    }
+
+    /** Lets postings already accepted reach the journal, then closes it. */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Ledger writer still busy; the journal was left open.");
+                return;
+            }
+            if (journal != null) journal.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            System.err.println("Could not close the journal: " + ex.getMessage());
+        }
+    }
+
+    // ---- queries: any thread ----
+
+    /** Rows fully applied so far; rows at or past it may still be landing. */
+    public int size() { return published; }
+
+    public int epochDay(int seq) { return store.epochDay(seq); }
+    public int debitId(int seq) { return store.debitId(seq); }
+    public int creditId(int seq) { return store.creditId(seq); }
+    public long amount(int seq) { return store.amount(seq); }
+    public String description(int seq) { return store.description(seq); }
+
+    public Account account(int id) { return accounts.get(id); }
+    public Account account(String name) { return accounts.get(name); }
+    public int accountCount() { return accounts.size(); }
+    /** Every account in id order, as a live read-only view. */
+    public List<Account> accounts() { return accounts.all(); }
+    public List<Account> accountsOfType(AccountType type) { return accounts.ofType(type); }
+
+    /** Opening balance plus every posting dated on or before the given epoch day. */
+    public long balanceAsOf(Account a, int epochDay) {
+        historyLock.readLock().lock();
+        try {
+            AccountHistory h = histories.get(a.getId());
+            return Money.add(a.getOpeningBalance(), h.deltas.prefix(h.seqs.upperBound(epochDay)));
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /**
+     Every account's current balance, by id, as of one instant: a posting is in all of them or in
+     none. A plain read usually does; if postings land meanwhile, every stripe is held for a second read.
+    */
+    public long[] balances() {
+        Account[] all = accounts.all().toArray(new Account[0]);
+        long[] stamps = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) stamps[i] = stripes[i].tryOptimisticRead();
+        long[] result = new long[all.length];
+        for (Account a : all) result[a.getId()] = a.getBalance();
+        boolean valid = true;
+        for (int i = 0; i < STRIPES && valid; i++) valid = stamps[i] != 0 && stripes[i].validate(stamps[i]);
+        if (valid) return result;
+
+        for (int i = 0; i < STRIPES; i++) stamps[i] = stripes[i].readLock();
+        try {
+            for (Account a : all) result[a.getId()] = a.getBalance();
+            return result;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) stripes[i].unlockRead(stamps[i]);
+        }
+    }
+
+    /** Sum of the current balances of every account of the given types, read at one instant. */
+    public long totalBalance(AccountType... types) {
+        long[] balances = balances();
+        long sum = 0;
+        for (AccountType type : types) {
+            for (Account a : accounts.ofType(type)) {
+                if (a.getId() < balances.length) sum = Money.add(sum, balances[a.getId()]);
+            }
+        }
+        return sum;
+    }
+
+    /** Every account's balance as of the given epoch day, by id, under one read lock like totalBalanceAsOf. */
+    public long[] balancesAsOf(int epochDay) {
+        historyLock.readLock().lock();
+        try {
+            long[] result = new long[histories.size()];
+            for (int id = 0; id < result.length; id++) result[id] = balanceAsOf(accounts.get(id), epochDay);
+            return result;
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    public long totalBalanceAsOf(int epochDay, AccountType... types) {
+        // One read lock across the lot, so a posting indexed meanwhile is in every account or in none.
+        historyLock.readLock().lock();
+        try {
+            long sum = 0;
+            for (AccountType type : types) {
+                for (Account a : accounts.ofType(type)) sum = Money.add(sum, balanceAsOf(a, epochDay));
+            }
+            return sum;
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /** The account's postings dated fromDay to toDay inclusive, in date order, with running balances. */
+    public List<LedgerLine> ledger(Account a, int fromDay, int toDay) {
+        return ledger(a, fromDay, toDay, 0, Integer.MAX_VALUE);
+    }
+
+    /** At most limit lines of ledger(a, fromDay, toDay), skipping the first offset; only those lines are built. */
+    public List<LedgerLine> ledger(Account a, int fromDay, int toDay, int offset, int limit) {
+        historyLock.readLock().lock();
+        try {
+            AccountHistory h = histories.get(a.getId());
+            int first = h.seqs.lowerBound(fromDay);
+            int end = Math.max(first, h.seqs.upperBound(toDay));
+            int from = (int) Math.min(end, (long) first + Math.max(0, offset));
+            int to = (int) Math.min(end, (long) from + Math.max(0, limit));
+            List<LedgerLine> lines = new ArrayList<>(to - from);
+            long balance = Money.add(a.getOpeningBalance(), h.deltas.prefix(from));
+            for (int i = from; i < to; i++) {
+                int seq = h.seqs.get(i);
+                balance = Money.add(balance, h.deltas.get(i));
+                lines.add(new LedgerLine(seq, store.epochDay(seq), store.debitId(seq), store.creditId(seq),
+                        store.amount(seq), store.description(seq), balance));
+            }
+            return lines;
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /** How many lines ledger(a, fromDay, toDay) has. */
+    public int ledgerCount(Account a, int fromDay, int toDay) {
+        historyLock.readLock().lock();
+        try {
+            AccountHistory h = histories.get(a.getId());
+            return Math.max(0, h.seqs.upperBound(toDay) - h.seqs.lowerBound(fromDay));
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /** Sequence numbers of the postings dated fromDay to toDay inclusive, by date and then order of entry. */
+    public int[] postingsBetween(int fromDay, int toDay) {
+        return journal(fromDay, toDay, 0, Integer.MAX_VALUE);
+    }
+
+    /** At most limit of postingsBetween(fromDay, toDay), skipping the first offset; read off the date index. */
+    public int[] journal(int fromDay, int toDay, int offset, int limit) {
+        historyLock.readLock().lock();
+        try {
+            int first = byDate.lowerBound(fromDay);
+            int end = Math.max(first, byDate.upperBound(toDay));
+            int from = (int) Math.min(end, (long) first + Math.max(0, offset));
+            int to = (int) Math.min(end, (long) from + Math.max(0, limit));
+            int[] seqs = new int[to - from];
+            byDate.getRows(from, to, seqs);
+            return seqs;
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /** How many postings are dated fromDay to toDay inclusive. */
+    public int journalCount(int fromDay, int toDay) {
+        historyLock.readLock().lock();
+        try {
+            return Math.max(0, byDate.upperBound(toDay) - byDate.lowerBound(fromDay));
+        } finally {
+            historyLock.readLock().unlock();
+        }
+    }
+
+    /** Period debits and credits per account over every posting made so far, summed on the common pool. */
+    public TrialBalance trialBalance(int fromDay, int toDay) {
+        // Rows only name accounts registered before them, so reading the row count first is enough.
+        int count = size();
+        int accountCount = accounts.size();
+        // Bounded on the date index under the lock; the summing runs after it is released.
+        int[] seqs;
+        historyLock.readLock().lock();
+        try {
+            int first = byDate.lowerBound(fromDay), end = byDate.upperBound(toDay);
+            if (first == 0 && end >= byDate.size()) seqs = null;
+            else {
+                seqs = new int[Math.max(0, end - first)];
+                byDate.getRows(first, first + seqs.length, seqs);
+            }
+        } finally {
+            historyLock.readLock().unlock();
+        }
+        return seqs == null
+            ? TrialBalance.compute(store, count, accountCount, ForkJoinPool.commonPool())
+            : TrialBalance.compute(store, seqs, count, accountCount, ForkJoinPool.commonPool());
+    }
+
+    // ---- writer thread ----
+
+    /** Work for the writer thread that either returns a result or refuses with a message for the user. */
+    private interface WriterTask<T> {
+        T run() throws PostingException;
+    }
+
+    private <T> CompletableFuture<T> submit(WriterTask<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            writer.execute(() -> {
+                try {
+                    result.complete(task.run());
+                } catch (PostingException | RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(new PostingException("The ledger is shutting down."));
+        }
+        return result;
+    }
+
+    // Validate, journal and apply one posting. Listeners are not told yet.
+    private int apply(PostingRequest req) throws PostingException {
+        int epochDay;
+        try {
+            if (req.date == null) throw new DateTimeParseException("No date", "", 0);
+            epochDay = Dates.parse(req.date);
+        } catch (DateTimeParseException ex) {
+            throw new PostingException("Invalid date format. Use YYYY-MM-DD.");
+        }
+
+        long amount;
+        try {
+            if (req.amount == null) throw new NumberFormatException();
+            amount = Money.parse(req.amount);
+            if (amount <= 0) throw new NumberFormatException();
+        } catch (NumberFormatException ex) {
+            throw new PostingException("Amount must be a number of at least 0.01.");
+        }
+
+        if (req.debitAccount == null || req.creditAccount == null) {
+            throw new PostingException("Select both debit and credit accounts.");
+        }
+        if (req.debitAccount.equals(req.creditAccount)) {
+            throw new PostingException("Debit and credit accounts cannot be the same.");
+        }
+
+        Account debitAcc = accounts.get(req.debitAccount);
+        Account creditAcc = accounts.get(req.creditAccount);
+        if (debitAcc == null || creditAcc == null) {
+            throw new PostingException("Selected account not found.");
+        }
+        return apply(epochDay, debitAcc, creditAcc, amount, req.description);
+    }
+
+    // The part of apply() that typed postings go through too. Safe from any number of threads at once.
+    private int apply(int epochDay, Account debitAcc, Account creditAcc, long amount, String description) throws PostingException {
+        if (debitAcc == null || creditAcc == null) throw new PostingException("Selected account not found.");
+        if (debitAcc == creditAcc) throw new PostingException("Debit and credit accounts cannot be the same.");
+        if (amount <= 0) throw new PostingException("Amount must be a number of at least 0.01.");
+        if (description == null) description = "";
+
+        // Lower stripe first, so two postings between the same pair of accounts cannot deadlock.
+        StampedLock low = stripes[Math.min(stripe(debitAcc), stripe(creditAcc))];
+        StampedLock high = stripes[Math.max(stripe(debitAcc), stripe(creditAcc))];
+        long lowStamp = low.writeLock();
+        long highStamp = high == low ? 0 : high.writeLock();
+        int seq;
+        try {
+            // Worked out before anything is written, so an overflow leaves no trace.
+            long debitBalance, creditBalance;
+            try {
+                debitBalance = debitAcc.debited(amount);
+                creditBalance = creditAcc.credited(amount);
+            } catch (ArithmeticException ex) {
+                throw new PostingException("The posting would take a balance out of range.");
+            }
+            sequencer.lock();
+            try {
+                if (journal != null) journal.appendPosting(epochDay, debitAcc.getId(), creditAcc.getId(), amount, description);
+                seq = store.append(epochDay, debitAcc.getId(), creditAcc.getId(), amount, description);
+            } catch (IOException ex) {
+                throw new PostingException("Could not save the transaction: " + ex.getMessage());
+            } finally {
+                sequencer.unlock();
+            }
+            debitAcc.setBalance(debitBalance);
+            creditAcc.setBalance(creditBalance);
+        } finally {
+            if (high != low) high.unlockWrite(highStamp);
+            low.unlockWrite(lowStamp);
+        }
+        try {
+            index(seq);
+        } finally {
+            finished(seq);
+        }
+        return seq;
+    }
+
+    private static int stripe(Account a) { return a.getId() & (STRIPES - 1); }
+
+    // Marks row seq applied, and moves published past it and every row finished early right after it.
+    private void finished(int seq) {
+        publishLock.lock();
+        try {
+            if (seq != published) {
+                finishedEarly.set(seq);
+                return;
+            }
+            int next = seq + 1;
+            while (finishedEarly.get(next)) finishedEarly.clear(next++);
+            published = next;
+            caughtUp.signalAll();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Tells listeners about every applied row they have not heard of yet.
+    private void announce() {
+        publishLock.lock();
+        try {
+            if (announced == published) return;
+            int from = announced;
+            announced = published;
+            fire(from, announced);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Ends a batch: one sync for all of it, then one notice for every row applied since the last.
+    private void finishBatch() throws PostingException {
+        IOException failed = null;
+        if (journal != null) {
+            try {
+                journal.sync();
+            } catch (IOException ex) {
+                failed = ex;
+            }
+        }
+        announce();
+        maybeWriteSnapshot();
+        if (failed != null) throw new PostingException("Postings were applied but could not be saved: " + failed.getMessage());
+    }
+
+    private Account register(String name, AccountType type, long initialBalance) {
+        Account a = accounts.register(name, type, initialBalance);
+        historyLock.writeLock().lock();
+        try {
+            histories.add(new AccountHistory(a));
+        } finally {
+            historyLock.writeLock().unlock();
+        }
+        return a;
+    }
+
+    private void index(int seq) {
+        int day = store.epochDay(seq);
+        int debitId = store.debitId(seq);
+        int creditId = store.creditId(seq);
+        long amount = store.amount(seq);
+        historyLock.writeLock().lock();
+        try {
+            byDate.insert(day, seq);
+            histories.get(debitId).insert(day, seq, debitId, amount);
+            histories.get(creditId).insert(day, seq, debitId, amount);
+        } finally {
+            historyLock.writeLock().unlock();
+        }
+    }
+
+    private void fire(int fromSeq, int toSeq) {
+        for (PostingListener l : listeners) l.posted(fromSeq, toSeq);
+    }
+
+    // Holds the sequencer and waits out the postings in flight, so the balances match the record count.
+    private void maybeWriteSnapshot() {
+        if (journal == null || journal.getRecordCount() - lastSnapshotRecords < snapshotInterval) return;
+        sequencer.lock();
+        try {
+            if (journal.getRecordCount() - lastSnapshotRecords < snapshotInterval) return;
+            awaitPublished(store.size());
+            long[] balances = new long[accounts.size()];
+            for (Account a : accounts.all()) balances[a.getId()] = a.getBalance();
+            snapshots.write(new SnapshotFile.Snapshot(journal.getRecordCount(), balances));
+            lastSnapshotRecords = journal.getRecordCount();
+        } catch (IOException ex) {
+            System.err.println("Could not write balance snapshot: " + ex.getMessage());
+        } finally {
+            sequencer.unlock();
+        }
+    }
+
+    private void awaitPublished(int rows) {
+        publishLock.lock();
+        try {
+            while (published < rows) caughtUp.awaitUninterruptibly();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Splits one CSV line; fields may be double-quoted, with "" standing for a literal quote.
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        fields.add(cur.toString());
+        return fields;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || (args[0].equals("import") && args.length != 2)) {
+            System.err.println("Usage: java accounting.LedgerEngine import <file.csv> | balances");
+            System.exit(2);
+        }
+        try (LedgerEngine engine = open(defaultDir())) {
+            if (args[0].equals("import")) {
+                long started = System.nanoTime();
+                BatchResult r = engine.importCsv(Paths.get(args[1])).join();
+                long ms = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+                System.out.println("Imported " + r.getPosted() + " postings in " + ms + " ms ("
+                        + r.getPosted() * 1000 / ms + "/s), rejected " + r.getRejected());
+                for (String e : r.getFirstErrors()) System.out.println("  " + e);
+            }
+            for (Account a : engine.accounts()) {
+                System.out.println(a.getName() + "\t" + a.getType() + "\t" + Money.format(a.getBalance()));
+            }
+        }
+    }
+}
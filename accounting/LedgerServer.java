@@ -0,0 +1,390 @@
+package accounting;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+LedgerServer.java
+ - The book over HTTP for other systems (billing, payroll), on localhost only, JSON both ways:
+     POST /postings                          {"date", "description", "debit", "credit", "amount"} -> 201 {"seq"}
+     POST /postings/batch                    [posting, ...] -> 200 {"posted", "rejected", "errors"}
+     GET  /accounts[?asOf=]                  every account with its balance, all read at one instant
+     GET  /accounts/{name}/ledger[?from=&to=&offset=&limit=]   one page of the ledger, with running balances;
+                                             {name} is percent-encoded, and a '+' in it is a plus, not a space
+     GET  /balance-sheet[?asOf=]             assets against liabilities and equity, plus net income
+ - Dates are yyyy-MM-dd; amounts go out as decimal strings ("1234.50") and come in as strings or numbers
+ - One virtual thread per request on a JDK that has them (21+). The build targets 17, so they are
+   looked up at run time; without them a fixed pool of platform threads serves requests, and when
+   its queue is full the accepting thread serves one itself, which holds back new connections
+ - Single postings go straight to postNow(), so requests post in parallel. Past maxPending postings
+   in flight (a batch counts its rows) a posting request is answered 503 with Retry-After at once
+ - java accounting.LedgerServer [port] [-Daccounting.dir=...] [-Daccounting.http.maxPending=n]
+*/
+public class LedgerServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8085;
+    private static final int MAX_BODY_BYTES = 16 << 20;
+    private static final int DEFAULT_PAGE = 100;
+    private static final int MAX_PAGE = 1000;
+    // Digits before the point in the largest amount Money can hold (Long.MAX_VALUE has 19).
+    private static final int MAX_INTEGER_DIGITS = 19;
+    // Decimal places a number may carry; Money rounds past the second, and this keeps the plain form short.
+    private static final int MAX_FRACTION_DIGITS = 19;
+
+    private final LedgerEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Semaphore pending;
+
+    public LedgerServer(LedgerEngine engine, int port) throws IOException {
+        this.engine = engine;
+        this.maxPending = Integer.getInteger("accounting.http.maxPending", 1024);
+        this.pending = new Semaphore(maxPending);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.executor = requestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() { server.start(); }
+
+    /** The port actually bound, for a server created on port 0. */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /** Stops taking requests, gives those under way a second to finish, and leaves the engine open. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() where the running JDK has it.
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            int threads = Integer.getInteger("accounting.http.threads", Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+            AtomicInteger n = new AtomicInteger();
+            return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4096), r -> {
+                Thread t = new Thread(r, "ledger-http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    /** A request the server answers with a status and an error message instead of a result. */
+    private static class HttpError extends Exception {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String[] path = ex.getRequestURI().getRawPath().replaceAll("^/+|/+$", "").split("/");
+            Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+            if (path.length == 1 && path[0].equals("postings")) {
+                requireMethod(ex, "POST");
+                postOne(ex);
+            } else if (path.length == 2 && path[0].equals("postings") && path[1].equals("batch")) {
+                requireMethod(ex, "POST");
+                postBatch(ex);
+            } else if (path.length == 1 && path[0].equals("accounts")) {
+                requireMethod(ex, "GET");
+                send(ex, 200, accounts(query));
+            } else if (path.length == 3 && path[0].equals("accounts") && path[2].equals("ledger")) {
+                requireMethod(ex, "GET");
+                send(ex, 200, ledger(pathSegment(path[1]), query));
+            } else if (path.length == 1 && path[0].equals("balance-sheet")) {
+                requireMethod(ex, "GET");
+                send(ex, 200, balanceSheet(query));
+            } else {
+                throw new HttpError(404, "No such resource: " + ex.getRequestURI().getPath());
+            }
+        } catch (HttpError err) {
+            if (err.status == 503) ex.getResponseHeaders().set("Retry-After", "1");
+            send(ex, err.status, error(err.getMessage()));
+        } catch (RuntimeException err) {
+            // The details stay in the server's log; the caller only learns that it failed.
+            System.err.println(ex.getRequestMethod() + " " + ex.getRequestURI().getPath() + " failed:");
+            err.printStackTrace();
+            send(ex, 500, error("Internal error."));
+        } finally {
+            ex.close();
+        }
+    }
+
+    // ---- postings ----
+
+    private void postOne(HttpExchange ex) throws IOException, HttpError {
+        Object body = readJson(ex);
+        if (!(body instanceof Map)) throw new HttpError(400, "Expected a JSON object for the posting.");
+        LedgerEngine.PostingRequest req = request((Map<?, ?>) body);
+        admit(1);
+        int seq;
+        try {
+            seq = engine.postNow(req);
+        } catch (PostingException err) {
+            throw new HttpError(400, err.getMessage());
+        } finally {
+            pending.release();
+        }
+        send(ex, 201, "{\"seq\":" + seq + "}");
+    }
+
+    private void postBatch(HttpExchange ex) throws IOException, HttpError {
+        Object body = readJson(ex);
+        if (!(body instanceof List)) throw new HttpError(400, "Expected a JSON array of postings.");
+        List<?> items = (List<?>) body;
+        List<LedgerEngine.PostingRequest> reqs = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            // A row of the wrong shape is the caller's bug, not a posting to refuse: nothing is posted.
+            if (!(items.get(i) instanceof Map)) throw new HttpError(400, "Row " + (i + 1) + " of the batch is not a JSON object.");
+            reqs.add(request((Map<?, ?>) items.get(i)));
+        }
+        int weight = Math.max(1, Math.min(reqs.size(), maxPending));
+        admit(weight);
+        LedgerEngine.BatchResult result;
+        try {
+            result = engine.postBatch(reqs).join();
+        } catch (RuntimeException err) {
+            if (err.getCause() instanceof PostingException) throw new HttpError(400, err.getCause().getMessage());
+            throw err;
+        } finally {
+            pending.release(weight);
+        }
+        StringBuilder out = new StringBuilder(128);
+        out.append("{\"posted\":").append(result.getPosted()).append(",\"rejected\":").append(result.getRejected()).append(",\"errors\":[");
+        List<String> errors = result.getFirstErrors();
+        for (int i = 0; i < errors.size(); i++) {
+            if (i > 0) out.append(',');
+            Json.quote(out, errors.get(i));
+        }
+        send(ex, 200, out.append("]}").toString());
+    }
+
+    // Refuses at once rather than queueing when the postings in flight would pass maxPending.
+    private void admit(int weight) throws HttpError {
+        if (!pending.tryAcquire(weight)) {
+            throw new HttpError(503, "The ledger is busy with " + maxPending + " postings in flight; retry shortly.");
+        }
+    }
+
+    private static LedgerEngine.PostingRequest request(Map<?, ?> m) throws HttpError {
+        return new LedgerEngine.PostingRequest(text(m, "date"), text(m, "description"), text(m, "debit"), text(m, "credit"), text(m, "amount"));
+    }
+
+    /*
+     A string field as given, or a number field in plain decimal form; null when missing. Numbers
+     are bounded first: 1e999999999 is a short literal whose plain form is a billion characters.
+    */
+    private static String text(Map<?, ?> m, String field) throws HttpError {
+        Object v = m.get(field);
+        if (v == null || v instanceof String) return (String) v;
+        if (v instanceof BigDecimal) {
+            BigDecimal n = (BigDecimal) v;
+            if (n.scale() > MAX_FRACTION_DIGITS || n.precision() - n.scale() > MAX_INTEGER_DIGITS) {
+                throw new HttpError(400, "Field \"" + field + "\" is out of range.");
+            }
+            return n.toPlainString();
+        }
+        throw new HttpError(400, "Field \"" + field + "\" must be a string.");
+    }
+
+    // ---- queries ----
+
+    private String accounts(Map<String, String> query) throws HttpError {
+        Integer asOf = day(query, "asOf", null);
+        long[] balances = asOf == null ? engine.balances() : engine.balancesAsOf(asOf);
+        StringBuilder out = new StringBuilder(64 * balances.length).append('[');
+        for (int id = 0; id < balances.length; id++) {
+            Account a = engine.account(id);
+            if (id > 0) out.append(',');
+            out.append("{\"id\":").append(id).append(",\"name\":");
+            Json.quote(out, a.getName()).append(",\"type\":");
+            Json.quote(out, a.getType().getLabel()).append(",\"balance\":\"").append(Money.format(balances[id])).append("\"}");
+        }
+        return out.append(']').toString();
+    }
+
+    private String ledger(String name, Map<String, String> query) throws HttpError {
+        Account a = engine.account(name);
+        if (a == null) throw new HttpError(404, "No account named " + name + ".");
+        int from = day(query, "from", Integer.MIN_VALUE);
+        int to = day(query, "to", Integer.MAX_VALUE);
+        int offset = number(query, "offset", 0, Integer.MAX_VALUE, 0);
+        int limit = number(query, "limit", 1, MAX_PAGE, DEFAULT_PAGE);
+        List<LedgerEngine.LedgerLine> lines = engine.ledger(a, from, to, offset, limit);
+        StringBuilder out = new StringBuilder(160 * lines.size() + 64);
+        out.append("{\"account\":");
+        Json.quote(out, a.getName()).append(",\"total\":").append(engine.ledgerCount(a, from, to))
+                .append(",\"offset\":").append(offset).append(",\"lines\":[");
+        for (int i = 0; i < lines.size(); i++) {
+            LedgerEngine.LedgerLine l = lines.get(i);
+            if (i > 0) out.append(',');
+            out.append("{\"seq\":").append(l.getSeq()).append(",\"date\":\"").append(Dates.format(l.getEpochDay())).append("\",\"description\":");
+            Json.quote(out, l.getDescription()).append(",\"debit\":");
+            Json.quote(out, engine.account(l.getDebitId()).getName()).append(",\"credit\":");
+            Json.quote(out, engine.account(l.getCreditId()).getName())
+                    .append(",\"amount\":\"").append(Money.format(l.getAmount()))
+                    .append("\",\"balance\":\"").append(Money.format(l.getBalance())).append("\"}");
+        }
+        return out.append("]}").toString();
+    }
+
+    private String balanceSheet(Map<String, String> query) throws HttpError {
+        Integer asOf = day(query, "asOf", null);
+        long[] balances = asOf == null ? engine.balances() : engine.balancesAsOf(asOf);
+        StringBuilder out = new StringBuilder(2048).append('{');
+        if (asOf != null) out.append("\"asOf\":\"").append(Dates.format(asOf)).append("\",");
+        long assets = section(out, "assets", balances, AccountType.ASSET);
+        out.append(',');
+        long liabilities = section(out, "liabilitiesAndEquity", balances, AccountType.LIABILITY, AccountType.OWNERS_EQUITY);
+        long netIncome = Money.subtract(total(balances, AccountType.REVENUE), total(balances, AccountType.EXPENSE));
+        out.append(",\"totalAssets\":\"").append(Money.format(assets))
+                .append("\",\"totalLiabilitiesAndEquity\":\"").append(Money.format(liabilities))
+                .append("\",\"netIncome\":\"").append(Money.format(netIncome)).append("\"}");
+        return out.toString();
+    }
+
+    // Writes "name":[{"name","balance"}...] for the accounts of the given types and returns their total.
+    private long section(StringBuilder out, String name, long[] balances, AccountType... types) {
+        out.append('"').append(name).append("\":[");
+        long sum = 0;
+        boolean first = true;
+        for (AccountType type : types) {
+            for (Account a : engine.accountsOfType(type)) {
+                if (a.getId() >= balances.length) continue;
+                if (!first) out.append(',');
+                first = false;
+                out.append("{\"name\":");
+                Json.quote(out, a.getName()).append(",\"balance\":\"").append(Money.format(balances[a.getId()])).append("\"}");
+                sum = Money.add(sum, balances[a.getId()]);
+            }
+        }
+        out.append(']');
+        return sum;
+    }
+
+    private long total(long[] balances, AccountType type) {
+        long sum = 0;
+        for (Account a : engine.accountsOfType(type)) {
+            if (a.getId() < balances.length) sum = Money.add(sum, balances[a.getId()]);
+        }
+        return sum;
+    }
+
+    // ---- plumbing ----
+
+    private static void requireMethod(HttpExchange ex, String allowed) throws HttpError {
+        if (ex.getRequestMethod().equals(allowed)) return;
+        ex.getResponseHeaders().set("Allow", allowed);
+        throw new HttpError(405, "Use " + allowed + " for " + ex.getRequestURI().getPath() + ".");
+    }
+
+    private static Object readJson(HttpExchange ex) throws IOException, HttpError {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try (InputStream in = ex.getRequestBody()) {
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                if (buf.size() + n > MAX_BODY_BYTES) throw new HttpError(413, "Request body is over " + (MAX_BODY_BYTES >> 20) + " MB.");
+                buf.write(chunk, 0, n);
+            }
+        }
+        try {
+            return Json.parse(buf.toString(StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException err) {
+            throw new HttpError(400, "Malformed JSON: " + err.getMessage());
+        }
+    }
+
+    // Percent-decodes one raw path segment. Unlike the query string's form decoding, a '+' stays a plus.
+    private static String pathSegment(String raw) {
+        return URI.create("/" + raw).getPath().substring(1);
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            params.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Integer day(Map<String, String> query, String name, Integer missing) throws HttpError {
+        String v = query.get(name);
+        if (v == null || v.isEmpty()) return missing;
+        try {
+            return Dates.parse(v);
+        } catch (DateTimeParseException err) {
+            throw new HttpError(400, "Parameter " + name + " must be a date as YYYY-MM-DD.");
+        }
+    }
+
+    private static int number(Map<String, String> query, String name, int min, int max, int missing) throws HttpError {
+        String v = query.get(name);
+        if (v == null || v.isEmpty()) return missing;
+        try {
+            int n = Integer.parseInt(v);
+            if (n >= min && n <= max) return n;
+        } catch (NumberFormatException err) {
+            // reported below
+        }
+        throw new HttpError(400, "Parameter " + name + " must be a whole number from " + min + " to " + max + ".");
+    }
+
+    private static String error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LedgerEngine engine = LedgerEngine.open(LedgerEngine.defaultDir());
+        LedgerServer server = new LedgerServer(engine, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            engine.close();
+        }));
+        server.start();
+        System.out.println("Ledger API on http://localhost:" + server.getPort() + "/ for " + LedgerEngine.defaultDir());
+    }
+}
@@ -0,0 +1,74 @@
+package accounting;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+LedgerTableModel.java
+ - One account's general ledger, read a page at a time from LedgerEngine.ledger(), so running
+   balances start from the opening balance just as the engine and the HTTP API report them
+ - Shows nothing until show() is given an account; EDT only
+*/
+public class LedgerTableModel extends ReadOnlyTableModel {
+    private static final int PAGE = 256;
+    private final LedgerEngine engine;
+    private Account shown;
+    private int rows;
+    private List<LedgerEngine.LedgerLine> page = Collections.emptyList();
+    private int pageStart = -1;
+
+    public LedgerTableModel(LedgerEngine engine) {
+        super("Date", "Description", "Debit Account", "Credit Account", "Amount", "Running Balance");
+        this.engine = engine;
+    }
+
+    public int getRowCount() { return rows; }
+
+    public Object getValueAt(int r, int c) {
+        LedgerEngine.LedgerLine line = lineAt(r);
+        switch (c) {
+            case 0: return Dates.format(line.getEpochDay());
+            case 1: return line.getDescription();
+            case 2: return engine.account(line.getDebitId()).getName();
+            case 3: return engine.account(line.getCreditId()).getName();
+            case 4: return line.getAmount();
+            default: return line.getBalance();
+        }
+    }
+
+    public Class<?> getColumnClass(int c) { return c >= 4 ? Long.class : String.class; }
+
+    private LedgerEngine.LedgerLine lineAt(int r) {
+        if (pageStart < 0 || r < pageStart || r >= pageStart + page.size()) {
+            pageStart = r - r % PAGE;
+            page = engine.ledger(shown, Integer.MIN_VALUE, Integer.MAX_VALUE, pageStart, PAGE);
+        }
+        return page.get(r - pageStart);
+    }
+
+    /** Shows the ledger of account, or nothing for null. */
+    public void show(Account account) {
+        shown = account;
+        rows = account == null ? 0 : engine.ledgerCount(account, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        pageStart = -1;
+        fireTableDataChanged();
+    }
+
+    // Only a posting to the shown account touches the ledger, and only from its row down:
+    // a back-dated row moves every later running balance, so those rows repaint too.
+    public void transactionPosted(int seq) {
+        if (shown == null || (engine.debitId(seq) != shown.getId() && engine.creditId(seq) != shown.getId())) return;
+        int before = rows;
+        rows = engine.ledgerCount(shown, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        pageStart = -1;
+        int row = insertedAt(engine.ledgerCount(shown, Integer.MIN_VALUE, engine.epochDay(seq)), rows);
+        if (rows == before + 1) {
+            fireTableRowsInserted(row, row);
+            if (row + 1 < rows) fireTableRowsUpdated(row + 1, rows - 1);
+        } else if (rows == before) {
+            fireTableRowsUpdated(row, rows - 1);
+        } else {
+            fireTableDataChanged();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package accounting;
+
+/*
+Money.java
+ - Amounts are plain longs counting cents, so totals are exact and adding allocates nothing
+ - parse() reads what the forms accept ("12", "12.5", "-0.07") without going through double,
+   rounding any further decimal places half up
+ - format() writes "1234.50" style text directly instead of using String.format
+ - formatTo() fills a caller's char buffer, optionally grouping thousands ("1,234.50"), for renderers
+   that draw the chars themselves
+*/
+public final class Money {
+    public static final int SCALE = 2;
+    public static final long ONE = 100;
+
+    private Money() {}
+
+    public static long add(long a, long b) { return Math.addExact(a, b); }
+    public static long subtract(long a, long b) { return Math.subtractExact(a, b); }
+
+    /** Signed amount: +cents when sign is positive, -cents otherwise. */
+    public static long signed(int sign, long cents) { return sign >= 0 ? cents : Math.negateExact(cents); }
+
+    public static long ofUnits(long units) { return Math.multiplyExact(units, ONE); }
+
+    /**
+     Parses a decimal amount into cents. Digits past the second decimal place round half up (away
+     from zero on a 5), as BigDecimal.setScale(2, RoundingMode.HALF_UP) and "%.2f" do.
+    */
+    public static long parse(String text) {
+        if (text == null) throw new NumberFormatException("null");
+        String s = text.trim();
+        int i = 0, n = s.length();
+        boolean negative = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        // Accumulated as a negative number, so Long.MIN_VALUE cents still fits.
+        long units = 0;
+        int intDigits = 0;
+        try {
+            while (i < n && s.charAt(i) != '.') {
+                int d = digit(s, i++);
+                units = Math.subtractExact(Math.multiplyExact(units, 10), d);
+                intDigits++;
+            }
+            long cents = 0;
+            int fracDigits = 0;
+            boolean roundUp = false;
+            if (i < n) {
+                i++;
+                for (; i < n; i++) {
+                    int d = digit(s, i);
+                    if (fracDigits < SCALE) cents = cents * 10 + d;
+                    else if (fracDigits == SCALE) roundUp = d >= 5;
+                    fracDigits++;
+                }
+            }
+            if (intDigits == 0 && fracDigits == 0) throw new NumberFormatException("No digits: " + text);
+            for (int k = fracDigits; k < SCALE; k++) cents *= 10;
+            long total = Math.subtractExact(Math.multiplyExact(units, ONE), cents);
+            if (roundUp) total = Math.subtractExact(total, 1);
+            return negative ? total : Math.negateExact(total);
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    private static int digit(String s, int i) {
+        char c = s.charAt(i);
+        if (c < '0' || c > '9') throw new NumberFormatException("Invalid amount: " + s);
+        return c - '0';
+    }
+
+    public static String format(long cents) {
+        char[] buf = new char[21];
+        int len = formatTo(cents, buf);
+        return new String(buf, buf.length - len, len);
+    }
+
+    /**
+     Writes cents right-aligned into the end of buf (needs 21 chars for any long)
+     and returns how many chars were written.
+    */
+    public static int formatTo(long cents, char[] buf) {
+        return formatTo(cents, buf, false);
+    }
+
+    /** As formatTo(cents, buf), with a comma every three integer digits when grouping (needs 27 chars). */
+    public static int formatTo(long cents, char[] buf, boolean grouping) {
+        int pos = buf.length;
+        boolean negative = cents < 0;
+        // Work on the negative value so Long.MIN_VALUE doesn't overflow.
+        long v = negative ? cents : -cents;
+        for (int k = 0; k < SCALE; k++) {
+            buf[--pos] = (char) ('0' - (v % 10));
+            v /= 10;
+        }
+        buf[--pos] = '.';
+        int digits = 0;
+        do {
+            if (grouping && digits > 0 && digits % 3 == 0) buf[--pos] = ',';
+            buf[--pos] = (char) ('0' - (v % 10));
+            v /= 10;
+            digits++;
+        } while (v != 0);
+        if (negative) buf[--pos] = '-';
+        return buf.length - pos;
+    }
+}
@@ -0,0 +1,90 @@
+package accounting;
+
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+
+/*
+MoneyCellRenderer.java
+ - Renders Long cents (as Money holds them) right-aligned, optionally with thousands grouping
+ - Each cell is written by Money.formatTo into one reused char buffer and drawn with drawChars,
+   so painting a column makes no Strings and no Formatter
+ - Install it for Long columns: table.setDefaultRenderer(Long.class, new MoneyCellRenderer(...));
+   a null value paints an empty cell, anything else is drawn from its toString()
+ - Like DefaultTableCellRenderer, it skips the revalidate/repaint work a rubber stamp never needs
+*/
+public class MoneyCellRenderer extends JComponent implements TableCellRenderer {
+    private static final Border NO_FOCUS = new EmptyBorder(1, 1, 1, 1);
+
+    private final boolean grouping;
+    private char[] buf = new char[27];
+    private int len; // the text is the last len chars of buf
+
+    public MoneyCellRenderer(boolean grouping) {
+        this.grouping = grouping;
+        setOpaque(true);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        setFont(table.getFont());
+        setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+        Color bg = isSelected ? table.getSelectionBackground() : table.getBackground();
+        if (!isSelected && row % 2 == 1) {
+            Color alt = UIManager.getColor("Table.alternateRowColor");
+            if (alt != null) bg = alt;
+        }
+        setBackground(bg);
+        Border focus = hasFocus ? UIManager.getBorder("Table.focusCellHighlightBorder") : null;
+        setBorder(focus != null ? focus : NO_FOCUS);
+
+        if (value instanceof Long) {
+            len = Money.formatTo((Long) value, buf, grouping);
+        } else if (value == null) {
+            len = 0;
+        } else {
+            String s = value.toString();
+            if (s.length() > buf.length) buf = new char[s.length()];
+            s.getChars(0, s.length(), buf, buf.length - s.length());
+            len = s.length();
+        }
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        if (len == 0) return;
+        g.setColor(getForeground());
+        g.setFont(getFont());
+        FontMetrics fm = g.getFontMetrics();
+        Insets in = getInsets();
+        int start = buf.length - len;
+        int x = getWidth() - in.right - 2 - fm.charsWidth(buf, start, len);
+        int y = in.top + (getHeight() - in.top - in.bottom - fm.getHeight()) / 2 + fm.getAscent();
+        g.drawChars(buf, start, len, x, y);
+    }
+
+    // A renderer is only ever painted as a stamp; these would just queue needless work.
+    @Override public void invalidate() {}
+    @Override public void validate() {}
+    @Override public void revalidate() {}
+    @Override public void repaint(long tm, int x, int y, int width, int height) {}
+    @Override public void repaint(Rectangle r) {}
+    @Override public void repaint() {}
+    @Override protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {}
+    @Override public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {}
+}
@@ -0,0 +1,127 @@
+package accounting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+OffHeapTransactionStore.java
+ - TransactionStore kept in direct buffers: of the rows themselves the heap holds only the segment
+   tables, so the store adds next to nothing to heap size or GC work however many postings it has
+ - The book as a whole still grows the heap: the engine's date indexes keep about 60 bytes a posting
+   in primitive arrays, and a frame's search index several hundred more unless it is turned off
+ - Rows are fixed-width records in segments of SEGMENT_ROWS; descriptions are UTF-8 in text segments
+ - Direct memory is capped by -XX:MaxDirectMemorySize (the heap size unless set), so very large
+   books need that raised along with turning this store on
+
+ Record layout (native order, RECORD_SIZE bytes):
+   0  int  epoch day
+   4  int  debit account id
+   8  int  credit account id
+  12  int  description length in bytes
+  16  long amount in cents
+  24  long description address: text segment << 32 | offset
+*/
+class OffHeapTransactionStore extends TransactionStore {
+    private static final int RECORD_SIZE = 32;
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT; // 2 MB of records
+    private static final int TEXT_SEGMENT = 4 << 20;
+
+    // Swapped in whole when they grow, so a reader always sees every segment below size().
+    private volatile ByteBuffer[] segments = new ByteBuffer[16];
+    private volatile ByteBuffer[] text = new ByteBuffer[16];
+    private int textCount;
+    private int textUsed = TEXT_SEGMENT; // forces a first text segment on the first append
+    private volatile int size;
+
+    @Override
+    public int append(int epochDay, int debitId, int creditId, long amount, String description) {
+        int seq = size;
+        byte[] bytes = description == null ? new byte[0] : description.getBytes(StandardCharsets.UTF_8);
+        long address = storeText(bytes);
+
+        ByteBuffer[] segs = segments;
+        int s = seq >>> SEGMENT_SHIFT;
+        if (s == segs.length) {
+            segs = Arrays.copyOf(segs, segs.length * 2);
+        }
+        if (segs[s] == null) {
+            segs[s] = ByteBuffer.allocateDirect(SEGMENT_ROWS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+            segments = segs;
+        }
+        int at = (seq & (SEGMENT_ROWS - 1)) * RECORD_SIZE;
+        segs[s].putInt(at, epochDay).putInt(at + 4, debitId).putInt(at + 8, creditId).putInt(at + 12, bytes.length)
+                .putLong(at + 16, amount).putLong(at + 24, address);
+        size = seq + 1;
+        return seq;
+    }
+
+    private long storeText(byte[] bytes) {
+        if (bytes.length == 0) return 0;
+        ByteBuffer[] t = text;
+        if (bytes.length > TEXT_SEGMENT - textUsed) {
+            if (textCount == t.length) t = Arrays.copyOf(t, t.length * 2);
+            // An oversized description gets a segment of its own.
+            t[textCount++] = ByteBuffer.allocateDirect(Math.max(TEXT_SEGMENT, bytes.length));
+            textUsed = 0;
+            text = t;
+        }
+        int seg = textCount - 1;
+        t[seg].put(textUsed, bytes);
+        long address = (long) seg << 32 | textUsed;
+        textUsed += bytes.length;
+        return address;
+    }
+
+    @Override public int size() { return size; }
+
+    @Override public int epochDay(int seq) { return record(seq).getInt(offset(seq)); }
+    @Override public int debitId(int seq) { return record(seq).getInt(offset(seq) + 4); }
+    @Override public int creditId(int seq) { return record(seq).getInt(offset(seq) + 8); }
+    @Override public long amount(int seq) { return record(seq).getLong(offset(seq) + 16); }
+
+    @Override
+    public String description(int seq) {
+        ByteBuffer r = record(seq);
+        int len = r.getInt(offset(seq) + 12);
+        if (len == 0) return "";
+        long address = r.getLong(offset(seq) + 24);
+        byte[] bytes = new byte[len];
+        text[(int) (address >>> 32)].get((int) address, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void forEach(int from, int to, RowVisitor visitor) {
+        checkRange(from, to);
+        ByteBuffer[] segs = segments;
+        for (int i = from; i < to; ) {
+            ByteBuffer seg = segs[i >>> SEGMENT_SHIFT];
+            int end = Math.min(to, ((i >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT);
+            for (; i < end; i++) {
+                int at = offset(i);
+                visitor.row(i, seg.getInt(at), seg.getInt(at + 4), seg.getInt(at + 8), seg.getLong(at + 16));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        segments = new ByteBuffer[16];
+        text = new ByteBuffer[16];
+        textCount = 0;
+        textUsed = TEXT_SEGMENT;
+    }
+
+    private ByteBuffer record(int seq) {
+        if (seq < 0 || seq >= size) throw new IndexOutOfBoundsException("Seq: " + seq + ", Size: " + size);
+        return segments[seq >>> SEGMENT_SHIFT];
+    }
+
+    private static int offset(int seq) {
+        return (seq & (SEGMENT_ROWS - 1)) * RECORD_SIZE;
+    }
+}
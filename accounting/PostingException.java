@@ -0,0 +1,6 @@
+package accounting;
+
+/** A posting or account change was refused; the message is meant for the user. */
+public class PostingException extends Exception {
+    public PostingException(String message) { super(message); }
+}
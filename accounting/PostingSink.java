@@ -0,0 +1,6 @@
+package accounting;
+
+/** Receives postings already in typed form: an epoch day, debit and credit account ids, and cents. */
+public interface PostingSink {
+    void posting(int epochDay, int debitId, int creditId, long amount, String description);
+}
@@ -0,0 +1,151 @@
+package accounting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+PrefixSums.java
+ - A list of long values that can insert at any position and answer "sum of the first n" in O(log n)
+ - Values live in blocks of up to 2 * BLOCK, each holding running sums from its own start,
+   so an insert only rewrites the tail of one block
+ - Two Fenwick trees over the blocks (value counts and block totals) find a position's block and
+   everything summed before it in one descent; they are rebuilt only when a block splits
+ - Mirrors a TransactionLog: insert at the index insert() returned there and the sums stay aligned
+*/
+public class PrefixSums {
+    private static final int BLOCK = 512;
+
+    private final List<long[]> blocks = new ArrayList<>();
+    private int[] counts = new int[16];
+    // Fenwick trees over blocks, 1-based.
+    private int[] countTree = new int[17];
+    private long[] sumTree = new long[17];
+    private int size;
+
+    public int size() { return size; }
+
+    public void clear() {
+        blocks.clear();
+        Arrays.fill(counts, 0);
+        Arrays.fill(countTree, 0);
+        Arrays.fill(sumTree, 0);
+        size = 0;
+    }
+
+    public void add(long value) {
+        insert(size, value);
+    }
+
+    /** Inserts value so it becomes the one at index, shifting later values up by one. */
+    public void insert(int index, long value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (blocks.isEmpty()) {
+            blocks.add(new long[2 * BLOCK]);
+            rebuildTrees();
+        }
+        int b, offset;
+        if (index == size) {
+            // Appending, the usual case, needs no descent.
+            b = blocks.size() - 1;
+            offset = counts[b];
+        } else {
+            long[] found = locate(index);
+            b = (int) found[0];
+            offset = (int) found[1];
+        }
+
+        long[] cum = blocks.get(b);
+        int n = counts[b];
+        System.arraycopy(cum, offset, cum, offset + 1, n - offset);
+        cum[offset] = (offset > 0 ? cum[offset - 1] : 0) + value;
+        for (int i = offset + 1; i <= n; i++) cum[i] += value;
+        counts[b] = n + 1;
+        size++;
+        for (int i = b + 1; i < countTree.length; i += i & -i) {
+            countTree[i]++;
+            sumTree[i] += value;
+        }
+        if (counts[b] == cum.length) split(b);
+    }
+
+    /** Sum of the first count values; count may be anything from 0 to size(). */
+    public long prefix(int count) {
+        if (count < 0 || count > size) throw new IndexOutOfBoundsException("Count: " + count + ", Size: " + size);
+        if (count == 0) return 0;
+        long[] found = locate(count - 1);
+        return found[2] + blocks.get((int) found[0])[(int) found[1]];
+    }
+
+    public long total() {
+        return prefix(size);
+    }
+
+    /** The value at index, recovered from the running sums. */
+    public long get(int index) {
+        return prefix(index + 1) - prefix(index);
+    }
+
+    /*
+     {block, offset within it, sum of all blocks before it} for index; index == size
+     resolves to the end of the last block.
+    */
+    private long[] locate(int index) {
+        int pos = 0;
+        int rem = index;
+        long before = 0;
+        int n = blocks.size();
+        for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= n && countTree[next] <= rem) {
+                pos = next;
+                rem -= countTree[next];
+                before += sumTree[next];
+            }
+        }
+        if (pos == n) {
+            pos = n - 1;
+            rem = counts[pos];
+            before -= blockTotal(pos);
+        }
+        return new long[] {pos, rem, before};
+    }
+
+    private long blockTotal(int b) {
+        return counts[b] == 0 ? 0 : blocks.get(b)[counts[b] - 1];
+    }
+
+    private void split(int b) {
+        long[] cum = blocks.get(b);
+        long[] upper = new long[2 * BLOCK];
+        long carry = cum[BLOCK - 1];
+        for (int i = BLOCK; i < cum.length; i++) upper[i - BLOCK] = cum[i] - carry;
+        blocks.add(b + 1, upper);
+        if (blocks.size() > counts.length) counts = Arrays.copyOf(counts, counts.length * 2);
+        System.arraycopy(counts, b + 1, counts, b + 2, blocks.size() - b - 2);
+        counts[b] = BLOCK;
+        counts[b + 1] = cum.length - BLOCK;
+        rebuildTrees();
+    }
+
+    private void rebuildTrees() {
+        int n = blocks.size();
+        if (countTree.length < counts.length + 1) {
+            countTree = new int[counts.length + 1];
+            sumTree = new long[counts.length + 1];
+        } else {
+            Arrays.fill(countTree, 0);
+            Arrays.fill(sumTree, 0);
+        }
+        // Linear-time Fenwick build: each node pushes its total to its parent.
+        for (int i = 1; i <= n; i++) {
+            countTree[i] += counts[i - 1];
+            sumTree[i] += blockTotal(i - 1);
+            int parent = i + (i & -i);
+            if (parent < countTree.length) {
+                countTree[parent] += countTree[i];
+                sumTree[parent] += sumTree[i];
+            }
+        }
+    }
+}
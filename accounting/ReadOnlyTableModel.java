@@ -0,0 +1,27 @@
+package accounting;
+
+import javax.swing.table.AbstractTableModel;
+
+/*
+ReadOnlyTableModel.java
+ - Base of the table models over a LedgerEngine: fixed column names, no editable cells
+ - The models read cells straight from the engine instead of copying them into Object[] rows;
+   dates and amounts are formatted only when a cell is rendered
+ - Row counts are re-read from the engine on every notice: one more row is announced as an insert,
+   none more (another notice already counted it) as a repaint, and anything else as a full change,
+   so the count a table is told of always matches what its model reports
+*/
+abstract class ReadOnlyTableModel extends AbstractTableModel {
+    private final String[] columns;
+
+    ReadOnlyTableModel(String... columns) { this.columns = columns; }
+
+    public int getColumnCount() { return columns.length; }
+    public String getColumnName(int c) { return columns[c]; }
+    public boolean isCellEditable(int r, int c) { return false; }
+
+    // Row of the newest posting dated on or before a day, given how many are: where a new one lands.
+    static int insertedAt(int countUpToItsDay, int rows) {
+        return Math.max(0, Math.min(countUpToItsDay, rows) - 1);
+    }
+}
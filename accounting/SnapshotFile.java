@@ -0,0 +1,80 @@
+package accounting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/*
+SnapshotFile.java
+ - Every account balance at one point of the journal, so startup only re-derives balances for the tail
+ - Written to a temp file and moved into place, so a crash mid-write leaves the previous snapshot intact
+ - A snapshot that fails its checksum, or covers more records than the journal has, is ignored
+
+ Layout (little-endian):
+   int  magic, int version
+   long journal records covered
+   int  account count, then one long balance (cents) per account id
+   int  CRC32 of everything before it
+*/
+public class SnapshotFile {
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 8 + 4;
+
+    /** Balances by account id as of the first {@code journalRecords} records of the journal. */
+    public static class Snapshot {
+        private final long journalRecords;
+        private final long[] balances;
+
+        public Snapshot(long journalRecords, long[] balances) {
+            this.journalRecords = journalRecords;
+            this.balances = balances;
+        }
+
+        public long getJournalRecords() { return journalRecords; }
+        public int getAccountCount() { return balances.length; }
+        public long getBalance(int accountId) { return balances[accountId]; }
+    }
+
+    private final Path file;
+
+    public SnapshotFile(Path dir) {
+        this.file = dir.resolve("snapshot.dat");
+    }
+
+    public void write(Snapshot snapshot) throws IOException {
+        int n = snapshot.getAccountCount();
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + n * 8 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(snapshot.getJournalRecords()).putInt(n);
+        for (int id = 0; id < n; id++) buf.putLong(snapshot.getBalance(id));
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, buf.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The stored snapshot, or null when there is none or it cannot be trusted for a journal of this many records. */
+    public Snapshot read(long journalRecords) throws IOException {
+        if (!Files.exists(file)) return null;
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < HEADER + 4) return null;
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+        long covered = buf.getLong();
+        int n = buf.getInt();
+        if (n < 0 || bytes.length != HEADER + n * 8L + 4 || covered > journalRecords) return null;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != buf.getInt(bytes.length - 4)) return null;
+        long[] balances = new long[n];
+        for (int id = 0; id < n; id++) balances[id] = buf.getLong();
+        return new Snapshot(covered, balances);
+    }
+}
@@ -0,0 +1,110 @@
+package accounting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+StringPool.java
+ - Dictionary encoding for repetitive text such as transaction descriptions
+ - intern() hands back the same int id for equal strings; get() turns an id back into the string
+ - Text is kept once per distinct value as UTF-8 in large shared byte chunks, and the lookup table
+   holds only ints, so the pool keeps no String objects alive
+*/
+public class StringPool {
+    private static final int CHUNK = 1 << 20;
+
+    private byte[][] chunks = new byte[4][];
+    private int chunkCount;
+    private int chunkUsed;
+
+    // Per id: chunk, offset within it, length in bytes and hash of the string.
+    private int[] chunkOf = new int[64];
+    private int[] offsetOf = new int[64];
+    private int[] lengthOf = new int[64];
+    private int[] hashOf = new int[64];
+    private int size;
+
+    // Open addressing over ids; -1 marks a free slot.
+    private int[] table = newTable(128);
+
+    public synchronized int size() { return size; }
+
+    public synchronized int intern(String s) {
+        int hash = s.hashCode();
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        for (int id; (id = table[slot]) >= 0; slot = (slot + 1) & mask) {
+            if (hashOf[id] == hash && sameBytes(id, bytes)) return id;
+        }
+        int id = store(bytes, hash);
+        table[slot] = id;
+        if (size * 2 > table.length) rehash(table.length * 2);
+        return id;
+    }
+
+    public synchronized String get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Id: " + id + ", Size: " + size);
+        return new String(chunks[chunkOf[id]], offsetOf[id], lengthOf[id], StandardCharsets.UTF_8);
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(chunks, null);
+        chunkCount = 0;
+        chunkUsed = 0;
+        size = 0;
+        table = newTable(128);
+    }
+
+    private int store(byte[] bytes, int hash) {
+        if (chunkCount == 0 || bytes.length > CHUNK - chunkUsed) {
+            if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            // An oversized string gets a chunk of its own.
+            chunks[chunkCount++] = new byte[Math.max(CHUNK, bytes.length)];
+            chunkUsed = 0;
+        }
+        System.arraycopy(bytes, 0, chunks[chunkCount - 1], chunkUsed, bytes.length);
+        if (size == chunkOf.length) {
+            int cap = size * 2;
+            chunkOf = Arrays.copyOf(chunkOf, cap);
+            offsetOf = Arrays.copyOf(offsetOf, cap);
+            lengthOf = Arrays.copyOf(lengthOf, cap);
+            hashOf = Arrays.copyOf(hashOf, cap);
+        }
+        chunkOf[size] = chunkCount - 1;
+        offsetOf[size] = chunkUsed;
+        lengthOf[size] = bytes.length;
+        hashOf[size] = hash;
+        chunkUsed += bytes.length;
+        return size++;
+    }
+
+    private boolean sameBytes(int id, byte[] bytes) {
+        int len = lengthOf[id];
+        if (len != bytes.length) return false;
+        int off = offsetOf[id];
+        return Arrays.equals(chunks[chunkOf[id]], off, off + len, bytes, 0, len);
+    }
+
+    private void rehash(int capacity) {
+        table = newTable(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashOf[id]) & mask;
+            while (table[slot] >= 0) slot = (slot + 1) & mask;
+            table[slot] = id;
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] t = new int[capacity];
+        Arrays.fill(t, -1);
+        return t;
+    }
+
+    // String.hashCode clusters in the low bits; spread it before masking.
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,144 @@
+package accounting;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+SubstringIndex.java
+ - Case-insensitive n-gram index (1, 2 and 3 characters) from text to ascending int document ids
+ - Documents are added once, with ids that only ever grow, so every posting list stays sorted
+ - candidates() returns the ids whose text contains every n-gram of the query; for queries longer
+   than three characters the caller still has to confirm the substring on those few candidates
+ - Safe to query from one thread while another adds
+*/
+public class SubstringIndex {
+    private static final int MAX_GRAM = 3;
+    // Separates fields so no n-gram spans two of them.
+    private static final char FIELD_BREAK = '\u0000';
+
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int lastId = -1;
+    private int size;
+
+    /** Indexes one document; ids must be added in increasing order. */
+    public void add(int id, String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String f : fields) {
+            if (f == null) continue;
+            if (sb.length() > 0) sb.append(FIELD_BREAK);
+            sb.append(f.toLowerCase());
+        }
+        lock.writeLock().lock();
+        try {
+            if (id <= lastId) throw new IllegalArgumentException("Document ids must increase: " + id + " after " + lastId);
+            lastId = id;
+            size++;
+            for (int i = 0; i < sb.length(); i++) {
+                long key = 0;
+                for (int n = 1; n <= MAX_GRAM && i + n <= sb.length(); n++) {
+                    char c = sb.charAt(i + n - 1);
+                    if (c == FIELD_BREAK) break;
+                    key = (key << 16) | c;
+                    grams.computeIfAbsent(withLength(key, n), k -> new Postings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            grams.clear();
+            lastId = -1;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Ascending ids of documents holding every n-gram of the query. An exact answer for queries up
+     to three characters; a superset for longer ones. Returns null for an empty query (everything).
+    */
+    public int[] candidates(String query) {
+        String q = query.toLowerCase();
+        if (q.isEmpty()) return null;
+        int n = Math.min(MAX_GRAM, q.length());
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[q.length() - n + 1];
+            for (int i = 0; i + n <= q.length(); i++) {
+                long key = 0;
+                for (int k = 0; k < n; k++) key = (key << 16) | q.charAt(i + k);
+                Postings p = grams.get(withLength(key, n));
+                if (p == null) return new int[0];
+                lists[i] = p;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int len = result.length;
+            for (int i = 1; i < lists.length && len > 0; i++) len = intersect(result, len, lists[i]);
+            return len == result.length ? result : Arrays.copyOf(result, len);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Keeps the ids of acc[0..len) that also appear in p; returns the new length.
+    private static int intersect(int[] acc, int len, Postings p) {
+        int out = 0, j = 0;
+        for (int i = 0; i < len && j < p.size; i++) {
+            int id = acc[i];
+            j = seek(p.ids, j, p.size, id);
+            if (j < p.size && p.ids[j] == id) acc[out++] = id;
+        }
+        return out;
+    }
+
+    // First index at or after from whose id is >= target, galloping then binary search.
+    private static int seek(int[] ids, int from, int to, int target) {
+        int step = 1, hi = from;
+        while (hi < to && ids[hi] < target) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        hi = Math.min(hi, to);
+        while (from < hi) {
+            int mid = (from + hi) >>> 1;
+            if (ids[mid] < target) from = mid + 1;
+            else hi = mid;
+        }
+        return from;
+    }
+
+    private static Long withLength(long key, int n) {
+        return ((long) n << 48) | key;
+    }
+
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+}
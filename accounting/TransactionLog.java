@@ -0,0 +1,219 @@
+package accounting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+TransactionLog.java
+ - Date-ordered list of transactions by row number, kept sorted on insert instead of re-sorted after every post
+ - Entries with the same date stay in posting order (ordered by row, which only grows)
+ - Each entry is one long, the date in the high half and the row in the low half, so nothing is
+   boxed and a comparison never goes back to the store
+ - Entries live in blocks of up to 2 * BLOCK, so a back-dated entry only shifts the rest of one
+   block however long the log is; a full block is split in half when an entry must go into it,
+   while appends simply start a new block, so a log kept in date order stays densely packed
+ - Each block's first key finds the block to insert into; a Fenwick tree over block counts turns
+   a position into a block and back, and is rebuilt only when a block is added or split
+ - Appending in date order, the usual case, goes straight to the last block
+*/
+public class TransactionLog {
+    private static final int BLOCK = 512;
+
+    private final List<long[]> blocks = new ArrayList<>();
+    private int[] counts = new int[16];
+    private long[] firstKeys = new long[16];
+    // Fenwick tree over block counts, 1-based.
+    private int[] countTree = new int[17];
+    private int size;
+
+    /** Inserts row seq dated epochDay after every entry dated on or before it and returns its index. */
+    public int insert(int epochDay, int seq) {
+        if (seq < 0) throw new IllegalArgumentException("Negative row: " + seq);
+        long key = (long) epochDay << 32 | seq;
+        int b, offset;
+        // Posting in date order lands at the end, so check there before searching.
+        if (size == 0 || lastKey() < key) {
+            // A full last block stays full; appends start the next one rather than splitting it.
+            if (blocks.isEmpty() || counts[blocks.size() - 1] == 2 * BLOCK) addBlock(key);
+            b = blocks.size() - 1;
+            offset = counts[b];
+        } else {
+            b = blockFor(key);
+            if (counts[b] == 2 * BLOCK) {
+                split(b);
+                b = blockFor(key);
+            }
+            offset = searchIn(b, key);
+        }
+        int index = startOf(b) + offset;
+
+        long[] keys = blocks.get(b);
+        int n = counts[b];
+        if (n == keys.length) {
+            // Blocks start small and grow to full size, so a short log stays small.
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            blocks.set(b, keys);
+        }
+        System.arraycopy(keys, offset, keys, offset + 1, n - offset);
+        keys[offset] = key;
+        if (offset == 0) firstKeys[b] = key;
+        counts[b] = n + 1;
+        size++;
+        for (int i = b + 1; i < countTree.length; i += i & -i) countTree[i]++;
+        return index;
+    }
+
+    /** The row at index. */
+    public int get(int index) {
+        checkIndex(index);
+        long found = locate(index);
+        return (int) blocks.get((int) (found >>> 32))[(int) found];
+    }
+
+    /** The date of the entry at index, as an epoch day. */
+    public int epochDay(int index) {
+        checkIndex(index);
+        long found = locate(index);
+        return (int) (blocks.get((int) (found >>> 32))[(int) found] >> 32);
+    }
+
+    /** Copies the rows at indexes [from, to) into dest, starting at dest[0]. */
+    public void getRows(int from, int to, int[] dest) {
+        if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Size: " + size);
+        if (from == to) return;
+        long found = locate(from);
+        int b = (int) (found >>> 32), offset = (int) found;
+        for (int i = 0; i < to - from; b++, offset = 0) {
+            long[] keys = blocks.get(b);
+            int end = Math.min(counts[b], offset + (to - from - i));
+            while (offset < end) dest[i++] = (int) keys[offset++];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        blocks.clear();
+        Arrays.fill(counts, 0);
+        Arrays.fill(countTree, 0);
+        size = 0;
+    }
+
+    /** Index of the first entry dated on or after epochDay. */
+    public int lowerBound(int epochDay) {
+        return search((long) epochDay << 32);
+    }
+
+    /** Index of the first entry dated after epochDay. */
+    public int upperBound(int epochDay) {
+        long key = (long) epochDay << 32 | Integer.MAX_VALUE;
+        if (size == 0 || lastKey() <= key) return size;
+        return search(key + 1);
+    }
+
+    // Index of the first key >= key.
+    private int search(long key) {
+        if (size == 0) return 0;
+        int b = blockFor(key);
+        return startOf(b) + searchIn(b, key);
+    }
+
+    // The last block whose first key is below key, or the first block: where key's index falls.
+    private int blockFor(long key) {
+        int lo = 0, hi = blocks.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firstKeys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return Math.max(0, lo - 1);
+    }
+
+    // Offset of the first key >= key within block b, or its count when there is none.
+    private int searchIn(int b, long key) {
+        long[] keys = blocks.get(b);
+        int lo = 0, hi = counts[b];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private long lastKey() {
+        int last = blocks.size() - 1;
+        return blocks.get(last)[counts[last] - 1];
+    }
+
+    // Entries in the blocks before b.
+    private int startOf(int b) {
+        int start = 0;
+        for (int i = b; i > 0; i -= i & -i) start += countTree[i];
+        return start;
+    }
+
+    // {block, offset within it} of index, packed as block << 32 | offset.
+    private long locate(int index) {
+        int pos = 0;
+        int rem = index;
+        int n = blocks.size();
+        for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= n && countTree[next] <= rem) {
+                pos = next;
+                rem -= countTree[next];
+            }
+        }
+        return (long) pos << 32 | rem;
+    }
+
+    // An empty block at the end, to be filled from firstKey on.
+    private void addBlock(long firstKey) {
+        blocks.add(new long[16]);
+        ensureBlockSlots();
+        counts[blocks.size() - 1] = 0;
+        firstKeys[blocks.size() - 1] = firstKey;
+        rebuildTree();
+    }
+
+    private void ensureBlockSlots() {
+        if (blocks.size() > counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+            firstKeys = Arrays.copyOf(firstKeys, firstKeys.length * 2);
+        }
+    }
+
+    private void split(int b) {
+        long[] keys = blocks.get(b);
+        long[] upper = new long[2 * BLOCK];
+        System.arraycopy(keys, BLOCK, upper, 0, BLOCK);
+        blocks.add(b + 1, upper);
+        ensureBlockSlots();
+        System.arraycopy(counts, b + 1, counts, b + 2, blocks.size() - b - 2);
+        System.arraycopy(firstKeys, b + 1, firstKeys, b + 2, blocks.size() - b - 2);
+        counts[b] = BLOCK;
+        counts[b + 1] = BLOCK;
+        firstKeys[b + 1] = upper[0];
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        int n = blocks.size();
+        if (countTree.length < counts.length + 1) countTree = new int[counts.length + 1];
+        else Arrays.fill(countTree, 0);
+        // Linear-time Fenwick build: each node pushes its total to its parent.
+        for (int i = 1; i <= n; i++) {
+            countTree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent < countTree.length) countTree[parent] += countTree[i];
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+}
@@ -0,0 +1,43 @@
+package accounting;
+
+/*
+TransactionStore.java
+ - Every posting as one fixed-shape row indexed by sequence number (order of entry): epoch-day date,
+   debit and credit account ids, amount in cents, and a description
+ - Two layouts: primitive arrays on the heap (the default), or fixed-width records in direct buffers
+   outside it for books large enough that the heap and its collections become the problem
+ - One thread appends at a time; any thread may read rows below size() without locking
+*/
+public abstract class TransactionStore {
+    /** Receives rows in sequence order without a per-row object. */
+    public interface RowVisitor {
+        void row(int seq, int epochDay, int debitId, int creditId, long amount);
+    }
+
+    public static TransactionStore create(boolean offHeap) {
+        return offHeap ? new OffHeapTransactionStore() : new HeapTransactionStore();
+    }
+
+    /** Appends one posting and returns its sequence number. */
+    public abstract int append(int epochDay, int debitId, int creditId, long amount, String description);
+
+    public abstract int size();
+
+    public abstract int epochDay(int seq);
+    public abstract int debitId(int seq);
+    public abstract int creditId(int seq);
+    public abstract long amount(int seq);
+    public abstract String description(int seq);
+
+    /** Visits rows from (inclusive) to to (exclusive). */
+    public abstract void forEach(int from, int to, RowVisitor visitor);
+
+    /** Startup only: drops every row while nothing else is reading. */
+    public abstract void clear();
+
+    void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > size()) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + ", Size: " + size());
+        }
+    }
+}
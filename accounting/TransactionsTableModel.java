@@ -0,0 +1,142 @@
+package accounting;
+
+import java.util.Arrays;
+
+/*
+TransactionsTableModel.java
+ - Newest-first view of the transactions, narrowed to the matches of the current search when one is set
+ - With no search, rows are read off the engine's date index a page at a time
+ - A search's matches arrive from the caller's search thread in pages, as seqs in newest-first order;
+   postings made meanwhile are held back until finishQuery(), then merged in
+ - EDT only
+*/
+public class TransactionsTableModel extends ReadOnlyTableModel {
+    private final LedgerEngine engine;
+    private final JournalRows journal;
+    private int rows;
+    private String query = "";
+    private int[] matches; // newest first; null while showing everything
+    private int matchCount;
+    private int generation; // bumped per query so pages of an abandoned search are dropped
+    private boolean streaming;
+    private int[] postedWhileStreaming = new int[16];
+    private int postedCount;
+
+    public TransactionsTableModel(LedgerEngine engine) {
+        super("Date", "Description", "Debit Account", "Credit Account", "Amount");
+        this.engine = engine;
+        this.journal = new JournalRows(engine);
+        this.rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** Whether posting seq matches a lower-case query on its date, description or account names. */
+    public static boolean matches(LedgerEngine engine, int seq, String query) {
+        return query.isEmpty()
+                || Dates.format(engine.epochDay(seq)).contains(query)
+                || engine.description(seq).toLowerCase().contains(query)
+                || engine.account(engine.debitId(seq)).getName().toLowerCase().contains(query)
+                || engine.account(engine.creditId(seq)).getName().toLowerCase().contains(query);
+    }
+
+    /** Newest-first journal order: later date first, then later entry first. */
+    public static int compareNewestFirst(LedgerEngine engine, int seqA, int seqB) {
+        int byDay = Integer.compare(engine.epochDay(seqB), engine.epochDay(seqA));
+        return byDay != 0 ? byDay : Integer.compare(seqB, seqA);
+    }
+
+    public int getRowCount() { return matches == null ? rows : matchCount; }
+
+    public Object getValueAt(int r, int c) {
+        int seq = matches == null ? journal.seqAt(rows-1-r) : matches[r];
+        switch (c) {
+            case 0: return Dates.format(engine.epochDay(seq));
+            case 1: return engine.description(seq);
+            case 2: return engine.account(engine.debitId(seq)).getName();
+            case 3: return engine.account(engine.creditId(seq)).getName();
+            default: return engine.amount(seq);
+        }
+    }
+
+    public Class<?> getColumnClass(int c) { return c == 4 ? Long.class : String.class; }
+
+    /** Clears the table for query (everything for "") and returns the generation its pages must carry. */
+    public int startQuery(String query) {
+        this.query = query;
+        generation++;
+        matches = query.isEmpty() ? null : new int[16];
+        matchCount = 0;
+        streaming = matches != null;
+        postedCount = 0;
+        rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        journal.clear();
+        fireTableDataChanged();
+        return generation;
+    }
+
+    /** Appends a page of matches that sorts wholly below those already shown. */
+    public void appendPage(int gen, int[] page) {
+        if (gen != generation || page.length == 0) return;
+        int first = matchCount;
+        ensureCapacity(matchCount + page.length);
+        System.arraycopy(page, 0, matches, matchCount, page.length);
+        matchCount += page.length;
+        fireTableRowsInserted(first, matchCount-1);
+    }
+
+    /** Replaces every match shown so far with all, already in newest-first order. */
+    public void replaceMatches(int gen, int[] all) {
+        if (gen != generation) return;
+        matches = all;
+        matchCount = all.length;
+        fireTableDataChanged();
+    }
+
+    /** The search has sent its last page; postings held back meanwhile go in now. */
+    public void finishQuery(int gen) {
+        if (gen != generation) return;
+        streaming = false;
+        for (int i = 0; i < postedCount; i++) insertMatch(postedWhileStreaming[i]);
+        postedCount = 0;
+    }
+
+    public String getQuery() { return query; }
+
+    /** Patches in posting seq, which the engine has already indexed. */
+    public void transactionPosted(int seq) {
+        int before = rows;
+        rows = engine.journalCount(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        journal.clear();
+        if (matches == null) {
+            int row = rows-1-insertedAt(engine.journalCount(Integer.MIN_VALUE, engine.epochDay(seq)), rows);
+            if (rows == before + 1) fireTableRowsInserted(row, row);
+            else if (rows == before) fireTableRowsUpdated(0, row);
+            else fireTableDataChanged();
+            return;
+        }
+        if (!matches(engine, seq, query)) return;
+        if (streaming) {
+            if (postedCount == postedWhileStreaming.length) postedWhileStreaming = Arrays.copyOf(postedWhileStreaming, postedCount * 2);
+            postedWhileStreaming[postedCount++] = seq;
+        } else {
+            insertMatch(seq);
+        }
+    }
+
+    private void insertMatch(int seq) {
+        int lo = 0, hi = matchCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareNewestFirst(engine, matches[mid], seq) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        ensureCapacity(matchCount + 1);
+        System.arraycopy(matches, lo, matches, lo + 1, matchCount - lo);
+        matches[lo] = seq;
+        matchCount++;
+        fireTableRowsInserted(lo, lo);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > matches.length) matches = Arrays.copyOf(matches, Math.max(capacity, matches.length * 2));
+    }
+}
@@ -0,0 +1,112 @@
+package accounting;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+TrialBalance.java
+ - Debit and credit totals per account id for the postings dated within a range of days
+ - compute() is handed the rows dated in the range, read off the engine's date index, so a short or
+   early period sums only its own postings instead of scanning the whole store
+ - A period taking in every posting skips the index and scans the rows in store order
+ - The rows are split in halves on a ForkJoinPool until pieces are small enough to sum directly,
+   then the per-account arrays are added back together
+ - Rows are only appended, so it can run while postings continue; rows at or past count are left out
+*/
+public final class TrialBalance {
+    // Below this many entries a piece is summed on one thread.
+    private static final int LEAF = 16_384;
+
+    private final long[] debits;
+    private final long[] credits;
+
+    private TrialBalance(long[] debits, long[] credits) {
+        this.debits = debits;
+        this.credits = credits;
+    }
+
+    /** Totals over the given rows of the store that are below count, in any order. */
+    public static TrialBalance compute(TransactionStore store, int[] seqs, int count, int accountCount, ForkJoinPool pool) {
+        if (count > store.size()) throw new IllegalArgumentException("Count " + count + " is past the end of the store");
+        return pool.invoke(new Slice(store, seqs, 0, seqs.length, count, accountCount));
+    }
+
+    /** Totals over rows [0, count) of the store, for a period that takes in every posting. */
+    public static TrialBalance compute(TransactionStore store, int count, int accountCount, ForkJoinPool pool) {
+        if (count > store.size()) throw new IllegalArgumentException("Count " + count + " is past the end of the store");
+        return pool.invoke(new Slice(store, null, 0, count, count, accountCount));
+    }
+
+    public int getAccountCount() { return debits.length; }
+    public long getDebits(int accountId) { return debits[accountId]; }
+    public long getCredits(int accountId) { return credits[accountId]; }
+
+    /** Movement in the account's normal direction: debits less credits for debit-normal types, the reverse otherwise. */
+    public long getNet(int accountId, AccountType type) {
+        return Money.signed(type.debitSign(), Money.subtract(debits[accountId], credits[accountId]));
+    }
+
+    public long totalDebits() { return sum(debits); }
+    public long totalCredits() { return sum(credits); }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long v : values) total = Money.add(total, v);
+        return total;
+    }
+
+    private static class Slice extends RecursiveTask<TrialBalance> {
+        private final TransactionStore store;
+        // The rows to sum, or null to sum rows [from, to) themselves.
+        private final int[] seqs;
+        private final int from, to, count, accountCount;
+
+        Slice(TransactionStore store, int[] seqs, int from, int to, int count, int accountCount) {
+            this.store = store;
+            this.seqs = seqs;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.accountCount = accountCount;
+        }
+
+        @Override
+        protected TrialBalance compute() {
+            if (to - from <= LEAF) return sumDirectly();
+            int mid = (from + to) >>> 1;
+            Slice left = new Slice(store, seqs, from, mid, count, accountCount);
+            Slice right = new Slice(store, seqs, mid, to, count, accountCount);
+            left.fork();
+            TrialBalance r = right.compute();
+            TrialBalance l = left.join();
+            for (int id = 0; id < accountCount; id++) {
+                l.debits[id] = Money.add(l.debits[id], r.debits[id]);
+                l.credits[id] = Money.add(l.credits[id], r.credits[id]);
+            }
+            return l;
+        }
+
+        private TrialBalance sumDirectly() {
+            long[] debits = new long[accountCount];
+            long[] credits = new long[accountCount];
+            TransactionStore.RowVisitor add = (seq, day, debit, credit, amount) -> {
+                debits[debit] = Money.add(debits[debit], amount);
+                credits[credit] = Money.add(credits[credit], amount);
+            };
+            if (seqs == null) {
+                store.forEach(from, to, add);
+                return new TrialBalance(debits, credits);
+            }
+            // Postings entered in date order sit in the index as runs of consecutive rows, and a run
+            // is read from the store as one scan rather than row by row.
+            int i = from;
+            while (i < to) {
+                int start = seqs[i], end = start + 1;
+                while (++i < to && seqs[i] == end && end < count) end++;
+                // Indexed but not yet published; it may name an account past accountCount.
+                if (start < count) store.forEach(start, end, add);
+            }
+            return new TrialBalance(debits, credits);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ConcurrentPostingTest.java
+ - Many threads calling postNow() on a few shared accounts lose no posting and break no invariant:
+   debits equal credits, every ledger ends on its account's balance, and the journal replays to the
+   same book
+*/
+class ConcurrentPostingTest {
+    private static final int THREADS = 8;
+    private static final int POSTINGS_PER_THREAD = 2_000;
+    private static final String[] ACCOUNTS = {"Cash", "Accounts Receivable", "Service Revenue", "Rent Expense", "Accounts Payable"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentPostersKeepTheBookBalanced() throws Exception {
+        LedgerEngine engine = LedgerEngine.open(dir);
+        AtomicLong posted = new AtomicLong();
+        AtomicLong postedCents = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] posters = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                posters[t] = pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < POSTINGS_PER_THREAD; i++) {
+                        // Now and then the same account on both sides, which must be refused.
+                        String debit = ACCOUNTS[random.nextInt(ACCOUNTS.length)];
+                        String credit = ACCOUNTS[random.nextInt(ACCOUNTS.length)];
+                        int cents = 1 + random.nextInt(1_000_000);
+                        String date = Dates.format(Dates.parse("2024-01-01") + random.nextInt(366));
+                        try {
+                            engine.postNow(new LedgerEngine.PostingRequest(date, "p" + i, debit, credit, Money.format(cents)));
+                            posted.incrementAndGet();
+                            postedCents.addAndGet(cents);
+                        } catch (PostingException ex) {
+                            assertEquals(debit, credit);
+                            refused.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> poster : posters) poster.get();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        assertEquals(THREADS * POSTINGS_PER_THREAD, posted.get() + refused.get());
+        assertEquals(posted.get(), engine.size());
+        long[] balances = assertBalanced(engine, postedCents.get());
+        engine.close();
+
+        LedgerEngine reopened = LedgerEngine.open(dir);
+        try {
+            assertEquals(posted.get(), reopened.size());
+            for (Account a : reopened.accounts()) assertEquals(balances[a.getId()], a.getBalance(), a.getName());
+            assertBalanced(reopened, postedCents.get());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // Checks the invariants and returns the balances by account id.
+    private static long[] assertBalanced(LedgerEngine engine, long postedCents) {
+        TrialBalance tb = engine.trialBalance(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(postedCents, tb.totalDebits());
+        assertEquals(postedCents, tb.totalCredits());
+        long[] balances = new long[engine.accountCount()];
+        long signed = 0;
+        for (Account a : engine.accounts()) {
+            balances[a.getId()] = a.getBalance();
+            // Every account opens at zero, so debit-normal balances less the others must net to nothing.
+            signed += a.getType().debitSign() * a.getBalance();
+            List<LedgerEngine.LedgerLine> lines = engine.ledger(a, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            long last = lines.isEmpty() ? a.getOpeningBalance() : lines.get(lines.size() - 1).getBalance();
+            assertEquals(a.getBalance(), last, a.getName());
+        }
+        assertEquals(0, signed);
+        return balances;
+    }
+}
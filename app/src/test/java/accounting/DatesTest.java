@@ -0,0 +1,52 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+DatesTest.java
+ - parse() accepts padded and unpadded months and days, as the old SimpleDateFormat did
+ - Days that do not exist and anything that is not a date are refused
+ - format() always pads, and round-trips through parse()
+*/
+class DatesTest {
+    @Test
+    void parsesWithOrWithoutPadding() {
+        int day = (int) LocalDate.of(2024, 2, 3).toEpochDay();
+        assertEquals(day, Dates.parse("2024-02-03"));
+        assertEquals(day, Dates.parse("2024-2-3"));
+        assertEquals(day, Dates.parse("2024-02-3"));
+        assertEquals(day, Dates.parse(" 2024-2-03 "));
+        assertEquals((int) LocalDate.of(2024, 12, 31).toEpochDay(), Dates.parse("2024-12-31"));
+        assertEquals("2024-02-03", Dates.format(day));
+    }
+
+    @Test
+    void refusesDaysThatDoNotExist() {
+        for (String text : new String[]{"2024-02-30", "2023-2-29", "2024-13-01", "2024-0-1", "2024-4-31", "2024-1-32"}) {
+            assertThrows(DateTimeParseException.class, () -> Dates.parse(text), text);
+        }
+        assertEquals((int) LocalDate.of(2024, 2, 29).toEpochDay(), Dates.parse("2024-2-29"));
+    }
+
+    @Test
+    void refusesAnythingElse() {
+        for (String text : new String[]{"", "2024", "2024-02", "2024/02/03", "03-02-2024", "2024-02-03x", "2024--2-3"}) {
+            assertThrows(DateTimeParseException.class, () -> Dates.parse(text), text);
+        }
+    }
+
+    @Test
+    void formatRoundTrips() {
+        int from = Dates.parse("1999-12-25");
+        for (int day = from; day < from + 3000; day += 7) {
+            assertEquals(day, Dates.parse(Dates.format(day)));
+            assertEquals(LocalDate.ofEpochDay(day).toString(), Dates.format(day));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+JournalFileTest.java
+ - Records come back from replay() as written, across a close and reopen
+ - A torn or half-written last record is cut off on open, as are records whose text is missing;
+   a bad record before the tail is refused
+*/
+class JournalFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysWhatWasWritten() throws IOException {
+        try (JournalFile journal = new JournalFile(dir)) {
+            journal.setSyncOnWrite(false);
+            writeBook(journal, 100);
+        }
+        try (JournalFile journal = new JournalFile(dir)) {
+            assertEquals(102, journal.getRecordCount());
+            assertEquals(100, journal.getPostingCount());
+            assertEquals(expectedBook(100), replay(journal));
+        }
+    }
+
+    @Test
+    void cutsOffAHalfWrittenTail() throws IOException {
+        try (JournalFile journal = new JournalFile(dir)) {
+            writeBook(journal, 10);
+        }
+        try (FileChannel records = FileChannel.open(dir.resolve("journal.dat"), StandardOpenOption.WRITE)) {
+            records.truncate(records.size() - JournalFile.RECORD_SIZE / 2);
+        }
+        try (JournalFile journal = new JournalFile(dir)) {
+            assertEquals(11, journal.getRecordCount());
+            assertEquals(9, journal.getPostingCount());
+            assertEquals(expectedBook(9), replay(journal));
+            // Appends after a recovery land straight after the last whole record.
+            journal.appendPosting(9, 0, 1, 900, "posting 9");
+        }
+        try (JournalFile journal = new JournalFile(dir)) {
+            assertEquals(expectedBook(10), replay(journal));
+        }
+    }
+
+    @Test
+    void cutsOffATornLastRecord() throws IOException {
+        try (JournalFile journal = new JournalFile(dir)) {
+            writeBook(journal, 10);
+        }
+        corruptRecord(11);
+        try (JournalFile journal = new JournalFile(dir)) {
+            assertEquals(11, journal.getRecordCount());
+            assertEquals(expectedBook(9), replay(journal));
+        }
+    }
+
+    @Test
+    void cutsOffRecordsWhoseTextIsMissing() throws Exception {
+        LedgerEngine engine = LedgerEngine.open(dir);
+        try {
+            for (int i = 0; i < 10; i++) {
+                engine.postNow(new LedgerEngine.PostingRequest("2024-03-0" + (i % 9 + 1), "posting " + i, "Cash", "Service Revenue", "1.00"));
+            }
+        } finally {
+            engine.close();
+        }
+        // The records made it to disk but the last three descriptions did not.
+        try (FileChannel text = FileChannel.open(dir.resolve("journal.txt"), StandardOpenOption.WRITE)) {
+            text.truncate(text.size() - "posting 9".length() - "posting 8".length() - 3);
+        }
+        engine = LedgerEngine.open(dir);
+        try {
+            assertEquals(7, engine.size());
+            assertEquals("posting 6", engine.description(6));
+            engine.postNow(new LedgerEngine.PostingRequest("2024-03-10", "after recovery", "Cash", "Service Revenue", "1.00"));
+        } finally {
+            engine.close();
+        }
+        engine = LedgerEngine.open(dir);
+        try {
+            assertEquals(8, engine.size());
+            assertEquals("after recovery", engine.description(7));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void refusesACorruptRecordBeforeTheTail() throws IOException {
+        try (JournalFile journal = new JournalFile(dir)) {
+            writeBook(journal, 10);
+        }
+        corruptRecord(5);
+        assertThrows(IOException.class, () -> new JournalFile(dir));
+    }
+
+    // Two accounts, then postings 0..n-1 between them, posting i dated day i for i * 100 cents.
+    private static void writeBook(JournalFile journal, int postings) throws IOException {
+        journal.appendAccount(0, AccountType.ASSET, 5000, "Cash");
+        journal.appendAccount(1, AccountType.REVENUE, 0, "Sales");
+        for (int i = 0; i < postings; i++) journal.appendPosting(i, 0, 1, i * 100L, "posting " + i);
+    }
+
+    private static List<String> expectedBook(int postings) {
+        List<String> lines = new ArrayList<>();
+        lines.add("account 0 ASSET 5000 Cash");
+        lines.add("account 1 REVENUE 0 Sales");
+        for (int i = 0; i < postings; i++) lines.add("posting " + (i + 2) + " " + i + " 0 1 " + i * 100L + " posting " + i);
+        return lines;
+    }
+
+    private static List<String> replay(JournalFile journal) throws IOException {
+        List<String> lines = new ArrayList<>();
+        journal.replay(new JournalFile.Visitor() {
+            public void account(int id, AccountType type, long initialBalance, String name) {
+                lines.add("account " + id + " " + type.name() + " " + initialBalance + " " + name);
+            }
+
+            public void posting(long record, int epochDay, int debitId, int creditId, long amount, String description) {
+                lines.add("posting " + record + " " + epochDay + " " + debitId + " " + creditId + " " + amount + " " + description);
+            }
+        });
+        return lines;
+    }
+
+    // Flips a byte of the amount, so the record no longer matches its CRC.
+    private void corruptRecord(long record) throws IOException {
+        try (FileChannel records = FileChannel.open(dir.resolve("journal.dat"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long pos = record * JournalFile.RECORD_SIZE + 16;
+            records.read(b, pos);
+            b.put(0, (byte) (b.get(0) ^ 0x5A)).rewind();
+            records.write(b, pos);
+        }
+    }
+}
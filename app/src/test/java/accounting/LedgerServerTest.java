@@ -0,0 +1,167 @@
+package accounting;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+LedgerServerTest.java
+ - Each status the API answers with: 201 and 200 for good requests, 400 for bad input,
+   404 for unknown resources, 405 for the wrong method, 503 with Retry-After when busy
+ - Amounts are bounded before they are expanded; a batch posts its good rows and lists the rest
+ - Account names in the path are percent-decoded, with '+' kept as a plus
+*/
+class LedgerServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private LedgerEngine engine;
+    private LedgerServer server;
+
+    @BeforeEach
+    void start() throws Exception {
+        engine = LedgerEngine.inMemory();
+        server = new LedgerServer(engine, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        engine.close();
+        System.clearProperty("accounting.http.maxPending");
+    }
+
+    @Test
+    void postsAndReadsBack() throws Exception {
+        HttpResponse<String> posted = post("/postings", posting("2024-05-01", "12.10"));
+        assertEquals(201, posted.statusCode());
+        assertEquals("{\"seq\":0}", posted.body());
+
+        HttpResponse<String> ledger = get("/accounts/Cash/ledger");
+        assertEquals(200, ledger.statusCode());
+        assertTrue(ledger.body().contains("\"amount\":\"12.10\""), ledger.body());
+        assertEquals(200, get("/accounts?asOf=2024-05-01").statusCode());
+        assertEquals(200, get("/balance-sheet").statusCode());
+    }
+
+    @Test
+    void refusesBadInputWith400() throws Exception {
+        assertEquals(400, post("/postings", "{\"date\":").statusCode());
+        assertEquals(400, post("/postings", "[]").statusCode());
+        assertEquals(400, post("/postings", posting("2024-05-01", "-5.00")).statusCode());
+        assertEquals(400, post("/postings", posting("not a date", "5.00")).statusCode());
+        assertEquals(400, get("/accounts?asOf=yesterday").statusCode());
+        assertEquals(400, get("/accounts/Cash/ledger?limit=0").statusCode());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void boundsHugeNumbersBeforeExpandingThem() throws Exception {
+        HttpResponse<String> huge = post("/postings",
+                "{\"date\":\"2024-05-01\",\"description\":\"x\",\"debit\":\"Cash\",\"credit\":\"Service Revenue\",\"amount\":1e999999999}");
+        assertEquals(400, huge.statusCode());
+        assertTrue(huge.body().contains("out of range"), huge.body());
+        HttpResponse<String> plain = post("/postings",
+                "{\"date\":\"2024-05-01\",\"description\":\"x\",\"debit\":\"Cash\",\"credit\":\"Service Revenue\",\"amount\":1.5e1}");
+        assertEquals(201, plain.statusCode());
+        assertEquals(1500, engine.amount(0));
+    }
+
+    @Test
+    void answers404And405() throws Exception {
+        assertEquals(404, get("/nothing-here").statusCode());
+        assertEquals(404, get("/accounts/No%20Such%20Account/ledger").statusCode());
+        HttpResponse<String> wrongMethod = get("/postings");
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("POST", wrongMethod.headers().firstValue("Allow").orElse(""));
+        assertEquals(405, post("/accounts", "{}").statusCode());
+    }
+
+    @Test
+    void decodesAPlusInAnAccountNameAsAPlus() throws Exception {
+        engine.addAccount("R+D Expense", AccountType.EXPENSE, 0).join();
+        engine.addAccount("R D Expense", AccountType.EXPENSE, 0).join();
+        assertEquals(201, post("/postings", "{\"date\":\"2024-05-01\",\"description\":\"lab\",\"debit\":\"R+D Expense\","
+                + "\"credit\":\"Cash\",\"amount\":\"3.00\"}").statusCode());
+        for (String path : new String[]{"/accounts/R+D%20Expense/ledger", "/accounts/R%2BD%20Expense/ledger"}) {
+            HttpResponse<String> ledger = get(path);
+            assertEquals(200, ledger.statusCode(), path);
+            assertTrue(ledger.body().startsWith("{\"account\":\"R+D Expense\",\"total\":1"), ledger.body());
+        }
+    }
+
+    @Test
+    void batchPostsGoodRowsAndListsTheRest() throws Exception {
+        HttpResponse<String> result = post("/postings/batch", "[" + posting("2024-05-01", "1.00") + ","
+                + "{\"date\":\"2024-05-02\",\"description\":\"x\",\"debit\":\"Nowhere\",\"credit\":\"Cash\",\"amount\":\"1.00\"},"
+                + posting("2024-05-03", "2.00") + "]");
+        assertEquals(200, result.statusCode());
+        assertTrue(result.body().startsWith("{\"posted\":2,\"rejected\":1,\"errors\":[\"Row 2: "), result.body());
+        assertEquals(2, engine.size());
+    }
+
+    @Test
+    void batchOfTheWrongShapeIsRefusedWhole() throws Exception {
+        assertEquals(400, post("/postings/batch", posting("2024-05-01", "1.00")).statusCode());
+        HttpResponse<String> notObject = post("/postings/batch", "[" + posting("2024-05-01", "1.00") + ",42]");
+        assertEquals(400, notObject.statusCode());
+        assertTrue(notObject.body().contains("Row 2 of the batch is not a JSON object"), notObject.body());
+        assertEquals(400, post("/postings/batch", "[{\"date\":\"2024-05-01\",\"amount\":1e999999999}]").statusCode());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void answers503WhenPostingsInFlightAreAtTheLimit() throws Exception {
+        server.close();
+        System.setProperty("accounting.http.maxPending", "1");
+        server = new LedgerServer(engine, 0);
+        server.start();
+        // Holds the first posting inside the engine, so it keeps the one permit.
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        engine.addListener((from, to) -> {
+            inside.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(postRequest("/postings", posting("2024-05-01", "1.00")),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(inside.await(10, TimeUnit.SECONDS));
+        HttpResponse<String> busy = post("/postings", posting("2024-05-02", "1.00"));
+        release.countDown();
+        assertEquals(503, busy.statusCode());
+        assertEquals("1", busy.headers().firstValue("Retry-After").orElse(""));
+        assertEquals(201, first.get(10, TimeUnit.SECONDS).statusCode());
+    }
+
+    private static String posting(String date, String amount) {
+        return "{\"date\":\"" + date + "\",\"description\":\"test\",\"debit\":\"Cash\",\"credit\":\"Service Revenue\",\"amount\":\"" + amount + "\"}";
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).GET().build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(postRequest(path, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest postRequest(String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+}
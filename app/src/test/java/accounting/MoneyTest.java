@@ -0,0 +1,97 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+MoneyTest.java
+ - parse() and format() agree with BigDecimal, which the long-cents code replaced: half-up
+   rounding past two places, negative amounts, thousands grouping and the ends of the long range
+ - Malformed text and amounts past the range are refused with NumberFormatException
+*/
+class MoneyTest {
+    @Test
+    void parsesLikeBigDecimalRoundedHalfUp() {
+        String[] samples = {"0", "12", "12.5", "12.50", "-0.07", "+3.10", " 7.25 ", "12.", ".5", "-.5",
+                "1.005", "1.004", "-1.005", "-1.004", "2.675", "0.0049999", "-0.001", "99.995", "-99.995"};
+        for (String s : samples) assertEquals(reference(s), Money.parse(s), s);
+
+        Random random = new Random(6);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder s = new StringBuilder();
+            if (random.nextBoolean()) s.append('-');
+            s.append(Math.abs(random.nextLong() % 1_000_000_000_000L));
+            int places = random.nextInt(6);
+            if (places > 0) s.append('.');
+            for (int k = 0; k < places; k++) s.append(random.nextInt(10));
+            assertEquals(reference(s.toString()), Money.parse(s.toString()), s.toString());
+        }
+    }
+
+    @Test
+    void parsesTheEndsOfTheLongRange() {
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07"));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08"));
+        assertEquals(Long.MAX_VALUE - 1, Money.parse("92233720368547758.0649"));
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.065"));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.075"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.075"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-92233720368547758.09"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("100000000000000000000"));
+    }
+
+    @Test
+    void refusesMalformedText() {
+        String[] bad = {"", " ", "-", "+", ".", "-.", "1.2.3", "1e5", "abc", "12a", "1,000.00", "--1", "1 000", "0x10"};
+        for (String s : bad) assertThrows(NumberFormatException.class, () -> Money.parse(s), s);
+        assertThrows(NumberFormatException.class, () -> Money.parse(null));
+    }
+
+    @Test
+    void formatsLikeBigDecimal() {
+        long[] samples = {0, 1, -1, 7, -7, 99, 100, -100, 123456, -123456, 100000000, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long cents : samples) {
+            assertEquals(BigDecimal.valueOf(cents, 2).toPlainString(), Money.format(cents), Long.toString(cents));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long cents = random.nextLong() >> random.nextInt(64);
+            assertEquals(BigDecimal.valueOf(cents, 2).toPlainString(), Money.format(cents));
+            assertEquals(cents, Money.parse(Money.format(cents)));
+        }
+    }
+
+    @Test
+    void groupsThousands() {
+        DecimalFormat grouped = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+        char[] buf = new char[27];
+        long[] samples = {0, -5, 99999, 100000, -100000, 123456789, -123456789, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long cents : samples) {
+            int len = Money.formatTo(cents, buf, true);
+            assertEquals(grouped.format(BigDecimal.valueOf(cents, 2)), new String(buf, buf.length - len, len), Long.toString(cents));
+        }
+    }
+
+    @Test
+    void arithmeticRefusesToOverflow() {
+        assertEquals(Long.MAX_VALUE, Money.add(Long.MAX_VALUE - 1, 1));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.signed(-1, Long.MIN_VALUE));
+        assertEquals(-250, Money.signed(-1, 250));
+    }
+
+    private static long reference(String s) {
+        return new BigDecimal(s.trim()).setScale(Money.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
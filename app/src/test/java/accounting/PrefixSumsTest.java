@@ -0,0 +1,104 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+PrefixSumsTest.java
+ - Random inserts, checked against a plain list summed by brute force, through many block splits
+ - An engine ledger with back-dated postings keeps running balances that add up
+*/
+class PrefixSumsTest {
+    @Test
+    void matchesBruteForceThroughBlockSplits() {
+        Random random = new Random(1);
+        PrefixSums sums = new PrefixSums();
+        List<Long> model = new ArrayList<>();
+        // Past ten blocks' worth, with appends, inserts at the front and inserts anywhere.
+        for (int i = 0; i < 12_000; i++) {
+            int index;
+            switch (random.nextInt(4)) {
+                case 0: index = 0; break;
+                case 1: index = model.size(); break;
+                default: index = random.nextInt(model.size() + 1);
+            }
+            long value = random.nextInt(2_000_001) - 1_000_000;
+            sums.insert(index, value);
+            model.add(index, value);
+            if (i % 1000 == 999) assertMatches(model, sums);
+        }
+        assertMatches(model, sums);
+    }
+
+    @Test
+    void startsOverAfterClear() {
+        PrefixSums sums = new PrefixSums();
+        for (int i = 0; i < 3000; i++) sums.add(i);
+        sums.clear();
+        assertEquals(0, sums.size());
+        assertEquals(0, sums.total());
+        List<Long> model = new ArrayList<>();
+        for (long i = 0; i < 2000; i++) {
+            sums.insert((int) (i / 2), i);
+            model.add((int) (i / 2), i);
+        }
+        assertMatches(model, sums);
+    }
+
+    @Test
+    void rejectsOutOfRangePositions() {
+        PrefixSums sums = new PrefixSums();
+        sums.add(5);
+        assertThrows(IndexOutOfBoundsException.class, () -> sums.insert(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> sums.prefix(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> sums.prefix(-1));
+    }
+
+    @Test
+    void ledgerRunningBalancesAddUpWithBackDatedPostings() throws PostingException {
+        LedgerEngine engine = LedgerEngine.inMemory();
+        Random random = new Random(2);
+        String[] names = {"Cash", "Service Revenue", "Rent Expense", "Accounts Payable"};
+        for (int i = 0; i < 3000; i++) {
+            String debit = names[random.nextInt(names.length)], credit;
+            do credit = names[random.nextInt(names.length)]; while (credit.equals(debit));
+            String date = Dates.format(Dates.parse("2024-01-01") + random.nextInt(366));
+            engine.postNow(new LedgerEngine.PostingRequest(date, "p" + i, debit, credit, (1 + random.nextInt(100_000)) + ".00"));
+        }
+        for (String name : names) {
+            Account a = engine.account(name);
+            List<LedgerEngine.LedgerLine> lines = engine.ledger(a, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            assertEquals(engine.ledgerCount(a, Integer.MIN_VALUE, Integer.MAX_VALUE), lines.size());
+            long balance = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                LedgerEngine.LedgerLine line = lines.get(i);
+                int sign = line.getDebitId() == a.getId() ? a.getType().debitSign() : a.getType().creditSign();
+                balance += sign * line.getAmount();
+                assertEquals(balance, line.getBalance(), name);
+                boolean lastOfDay = i + 1 == lines.size() || lines.get(i + 1).getEpochDay() != line.getEpochDay();
+                if (i + 1 < lines.size()) assertTrue(lines.get(i + 1).getEpochDay() >= line.getEpochDay(), name + " out of date order");
+                if (lastOfDay) assertEquals(balance, engine.balanceAsOf(a, line.getEpochDay()), name);
+            }
+            assertEquals(a.getBalance(), balance, name);
+        }
+        engine.close();
+    }
+
+    private static void assertMatches(List<Long> model, PrefixSums sums) {
+        assertEquals(model.size(), sums.size());
+        long running = 0;
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(running, sums.prefix(i), "prefix " + i);
+            assertEquals((long) model.get(i), sums.get(i), "value " + i);
+            running += model.get(i);
+        }
+        assertEquals(running, sums.total());
+    }
+}
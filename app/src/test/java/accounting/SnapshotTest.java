@@ -0,0 +1,128 @@
+package accounting;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+SnapshotTest.java
+ - Reopening from a balance snapshot gives the balances a full replay gives
+ - A snapshot that disagrees with the journal is caught by -Daccounting.snapshot.verify and replaced
+ - Snapshots that fail their checksum, or cover more of the journal than exists, are not read
+*/
+class SnapshotTest {
+    private static final int POSTINGS = 50;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void snapshotOften() {
+        System.setProperty("accounting.snapshotInterval", "10");
+    }
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("accounting.snapshotInterval");
+        System.clearProperty("accounting.snapshot.verify");
+    }
+
+    @Test
+    void reopensFromSnapshotWithTheSameBalances() throws Exception {
+        long[] before = postBook();
+        assertTrue(Files.exists(dir.resolve("snapshot.dat")));
+        LedgerEngine engine = LedgerEngine.open(dir);
+        try {
+            assertEquals(POSTINGS, engine.size());
+            assertBalances(before, engine);
+            assertNull(engine.getSnapshotMismatch());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void verifyReplacesASnapshotThatDisagreesWithTheJournal() throws Exception {
+        long[] before = postBook();
+        SnapshotFile file = new SnapshotFile(dir);
+        SnapshotFile.Snapshot snap = file.read(Long.MAX_VALUE);
+        long[] tampered = new long[snap.getAccountCount()];
+        for (int id = 0; id < tampered.length; id++) tampered[id] = snap.getBalance(id);
+        tampered[0] += 1;
+        file.write(new SnapshotFile.Snapshot(snap.getJournalRecords(), tampered));
+
+        // Unchecked, the snapshot is trusted: that is what makes startup fast.
+        LedgerEngine engine = LedgerEngine.open(dir);
+        try {
+            assertEquals(before[0] + 1, engine.account(0).getBalance());
+        } finally {
+            engine.close();
+        }
+
+        System.setProperty("accounting.snapshot.verify", "true");
+        engine = LedgerEngine.open(dir);
+        try {
+            assertNotNull(engine.getSnapshotMismatch());
+            assertTrue(engine.getSnapshotMismatch().startsWith("Cash:"));
+            assertBalances(before, engine);
+        } finally {
+            engine.close();
+        }
+
+        // The verified open wrote a fresh snapshot over the bad one, and that one checks out.
+        engine = LedgerEngine.open(dir);
+        try {
+            assertNull(engine.getSnapshotMismatch());
+            assertBalances(before, engine);
+        } finally {
+            System.clearProperty("accounting.snapshot.verify");
+            engine.close();
+        }
+    }
+
+    @Test
+    void ignoresSnapshotsThatCannotBeTrusted() throws IOException {
+        SnapshotFile file = new SnapshotFile(dir);
+        file.write(new SnapshotFile.Snapshot(100, new long[]{1, 2, 3}));
+        assertEquals(2, file.read(100).getBalance(1));
+        assertNull(file.read(99));
+
+        Path path = dir.resolve("snapshot.dat");
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 8] ^= 1;
+        Files.write(path, bytes);
+        assertNull(file.read(100));
+    }
+
+    // Posts POSTINGS postings, closes the book and returns its balances by account id.
+    private long[] postBook() throws Exception {
+        LedgerEngine engine = LedgerEngine.open(dir);
+        try {
+            for (int i = 0; i < POSTINGS; i++) {
+                String debit = i % 3 == 0 ? "Rent Expense" : "Cash";
+                String credit = i % 3 == 0 ? "Cash" : "Service Revenue";
+                engine.postNow(new LedgerEngine.PostingRequest("2024-01-" + (10 + i % 20), "posting " + i, debit, credit, (i + 1) + ".25"));
+            }
+            long[] balances = new long[engine.accountCount()];
+            for (Account a : engine.accounts()) balances[a.getId()] = a.getBalance();
+            return balances;
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static void assertBalances(long[] expected, LedgerEngine engine) {
+        assertEquals(expected.length, engine.accountCount());
+        for (Account a : engine.accounts()) assertEquals(expected[a.getId()], a.getBalance(), a.getName());
+    }
+}
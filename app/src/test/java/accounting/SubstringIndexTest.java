@@ -0,0 +1,107 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+SubstringIndexTest.java
+ - candidates() against a plain case-insensitive contains() scan over the same fields: equal for
+   queries of up to three characters, a superset that filters down to it for longer ones
+ - Mixed case and non-ASCII text, and documents added after queries have been answered
+*/
+class SubstringIndexTest {
+    // Few enough characters that random queries often hit; non-ASCII and both cases included.
+    private static final String ALPHABET = "abcABC xyz-é É ß ü Ü ω Ω 日本 0123";
+
+    @Test
+    void matchesAContainsScan() {
+        Random random = new Random(11);
+        SubstringIndex index = new SubstringIndex();
+        List<String[]> docs = new ArrayList<>();
+        addDocs(index, docs, random, 2000);
+        checkQueries(index, docs, random);
+
+        // Documents added after the index has been queried are found just the same.
+        addDocs(index, docs, random, 1000);
+        assertEquals(3000, index.size());
+        checkQueries(index, docs, random);
+    }
+
+    @Test
+    void ignoresCaseAndKeepsFieldsApart() {
+        SubstringIndex index = new SubstringIndex();
+        index.add(0, "2024-05-01", "Straße Ölförderung", "Cash", "Service Revenue");
+        index.add(1, "2024-05-02", "ΩMEGA rent", "Rent Expense", "Cash");
+        index.add(5, "2024-06-01", "日本 office", "Supplies", "Cash");
+        assertArrayEquals(new int[]{0}, index.candidates("RAß"));
+        assertArrayEquals(new int[]{0}, index.candidates("ölf"));
+        assertArrayEquals(new int[]{0}, index.candidates("ÖLF"));
+        assertArrayEquals(new int[]{1}, index.candidates("ωme"));
+        assertArrayEquals(new int[]{5}, index.candidates("日本"));
+        assertArrayEquals(new int[]{0, 1, 5}, index.candidates("cash"));
+        assertArrayEquals(new int[]{0, 1, 5}, index.candidates("C"));
+        // "cash" then "service" would only match across the field boundary.
+        assertArrayEquals(new int[0], index.candidates("hse"));
+        assertNull(index.candidates(""));
+        assertThrows(IllegalArgumentException.class, () -> index.add(5, "again"));
+    }
+
+    private static void addDocs(SubstringIndex index, List<String[]> docs, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            String[] fields = {word(random, 1 + random.nextInt(8)), word(random, random.nextInt(14)), word(random, 1 + random.nextInt(5))};
+            index.add(docs.size(), fields);
+            docs.add(fields);
+        }
+    }
+
+    private static void checkQueries(SubstringIndex index, List<String[]> docs, Random random) {
+        for (int q = 0; q < 400; q++) {
+            String query = word(random, 1 + random.nextInt(5));
+            if (random.nextInt(3) == 0) {
+                // Also a piece of a real document, so long queries have hits to confirm.
+                String field = docs.get(random.nextInt(docs.size()))[1];
+                if (field.length() >= 4) {
+                    int from = random.nextInt(field.length() - 3);
+                    query = field.substring(from, from + 1 + random.nextInt(field.length() - from)).toUpperCase();
+                }
+            }
+            int[] expected = scan(docs, query);
+            int[] candidates = index.candidates(query);
+            if (query.length() <= 3) {
+                assertArrayEquals(expected, candidates, query);
+            } else {
+                List<Integer> confirmed = new ArrayList<>();
+                for (int id : candidates) if (contains(docs.get(id), query)) confirmed.add(id);
+                assertArrayEquals(expected, confirmed.stream().mapToInt(Integer::intValue).toArray(), query);
+                assertTrue(candidates.length >= expected.length, query);
+            }
+        }
+    }
+
+    private static int[] scan(List<String[]> docs, String query) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < docs.size(); id++) if (contains(docs.get(id), query)) ids.add(id);
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean contains(String[] fields, String query) {
+        String q = query.toLowerCase();
+        for (String f : fields) if (f.toLowerCase().contains(q)) return true;
+        return false;
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return sb.toString();
+    }
+}
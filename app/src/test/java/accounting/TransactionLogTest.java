@@ -0,0 +1,96 @@
+package accounting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+TransactionLogTest.java
+ - Entries stay in date order, and postings on the same day stay in the order they were entered
+ - lowerBound/upperBound and getRows agree with a brute-force sort of the same entries
+*/
+class TransactionLogTest {
+    @Test
+    void keepsSameDayPostingsInOrderOfEntry() {
+        TransactionLog log = new TransactionLog();
+        assertEquals(0, log.insert(10, 0));
+        assertEquals(1, log.insert(12, 1));
+        // Back-dated onto day 10: after the posting already there, before day 12.
+        assertEquals(1, log.insert(10, 2));
+        assertEquals(0, log.insert(9, 3));
+        assertEquals(4, log.insert(12, 4));
+        int[] rows = new int[log.size()];
+        log.getRows(0, log.size(), rows);
+        assertArrayEquals(new int[]{3, 0, 2, 1, 4}, rows);
+        assertEquals(1, log.lowerBound(10));
+        assertEquals(3, log.upperBound(10));
+        assertEquals(3, log.lowerBound(11));
+        assertEquals(3, log.upperBound(11));
+        assertEquals(5, log.upperBound(12));
+    }
+
+    @Test
+    void matchesBruteForceSort() {
+        Random random = new Random(3);
+        TransactionLog log = new TransactionLog();
+        List<int[]> model = new ArrayList<>();
+        // Enough entries for dozens of blocks, some filled by appends and some split by back-dating.
+        for (int seq = 0; seq < 30_000; seq++) {
+            // Mostly in date order, as books are kept, with back-dated entries mixed in.
+            int day = random.nextInt(4) == 0 ? random.nextInt(seq / 10 + 1) : seq / 10;
+            log.insert(day, seq);
+            model.add(new int[]{day, seq});
+        }
+        model.sort(Comparator.<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+        assertEquals(model.size(), log.size());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i)[0], log.epochDay(i));
+            assertEquals(model.get(i)[1], log.get(i));
+        }
+        int[] rows = new int[model.size()];
+        log.getRows(0, rows.length, rows);
+        for (int i = 0; i < rows.length; i++) assertEquals(model.get(i)[1], rows[i]);
+        for (int from = 0; from < rows.length; from += 997) {
+            int[] some = new int[Math.min(1500, rows.length - from)];
+            log.getRows(from, from + some.length, some);
+            for (int i = 0; i < some.length; i++) assertEquals(rows[from + i], some[i]);
+        }
+        for (int day = -1; day <= 3001; day++) {
+            int lower = 0, upper = 0;
+            for (int[] e : model) {
+                if (e[0] < day) lower++;
+                if (e[0] <= day) upper++;
+            }
+            assertEquals(lower, log.lowerBound(day), "lowerBound " + day);
+            assertEquals(upper, log.upperBound(day), "upperBound " + day);
+        }
+    }
+
+    @Test
+    void startsOverAfterClear() {
+        TransactionLog log = new TransactionLog();
+        for (int seq = 0; seq < 3000; seq++) log.insert(3000 - seq, seq);
+        log.clear();
+        assertEquals(0, log.size());
+        assertEquals(0, log.upperBound(5));
+        for (int seq = 0; seq < 3000; seq++) assertEquals(0, log.insert(-seq, seq));
+        assertEquals(2999, log.get(0));
+        assertEquals(0, log.get(2999));
+    }
+
+    @Test
+    void rejectsBadIndexes() {
+        TransactionLog log = new TransactionLog();
+        log.insert(1, 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.getRows(0, 2, new int[2]));
+        assertThrows(IllegalArgumentException.class, () -> log.insert(1, -1));
+    }
+}
@@ -0,0 +1,120 @@
+package accounting;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+TrialBalanceTest.java
+ - The parallel, date-bounded trial balance against a sequential scan of every row in the store
+ - Whole-book periods (the full scan) and partial ones (read off the date index), single days,
+   periods ending on an as-of day, empty periods, and accounts with no postings at all
+ - Postings arrive in random date order, so the index is built from back-dated inserts
+*/
+class TrialBalanceTest {
+    private static final String[] NAMES = {"Cash", "Service Revenue", "Rent Expense", "Accounts Payable", "Supplies"};
+    private static final int FIRST_DAY = Dates.parse("2024-01-01");
+    private static final int DAYS = 366;
+
+    private static LedgerEngine engine;
+    private static int unusedId;
+
+    @BeforeAll
+    static void postBook() throws PostingException {
+        engine = LedgerEngine.inMemory();
+        // Opened with a balance but never posted to: the period totals leave it at zero.
+        unusedId = engine.addAccount("Never Posted", AccountType.ASSET, 500_00).join().getId();
+        Random random = new Random(16);
+        // Enough rows that the ForkJoin split goes several levels deep.
+        for (int i = 0; i < 60_000; i++) {
+            String debit = NAMES[random.nextInt(NAMES.length)], credit;
+            do credit = NAMES[random.nextInt(NAMES.length)]; while (credit.equals(debit));
+            String date = Dates.format(FIRST_DAY + random.nextInt(DAYS));
+            engine.postNow(new LedgerEngine.PostingRequest(date, "p" + i, debit, credit, (1 + random.nextInt(100_000)) + ".25"));
+        }
+    }
+
+    @Test
+    void wholeBookMatchesScan() {
+        assertMatchesScan(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertMatchesScan(FIRST_DAY, FIRST_DAY + DAYS - 1);
+        assertMatchesScan(FIRST_DAY - 10, FIRST_DAY + DAYS + 10);
+    }
+
+    @Test
+    void partialPeriodsMatchScan() {
+        Random random = new Random(61);
+        for (int i = 0; i < 40; i++) {
+            int from = FIRST_DAY - 5 + random.nextInt(DAYS + 10);
+            assertMatchesScan(from, from + random.nextInt(120));
+        }
+        // Single days at both ends and in the middle.
+        assertMatchesScan(FIRST_DAY, FIRST_DAY);
+        assertMatchesScan(FIRST_DAY + 100, FIRST_DAY + 100);
+        assertMatchesScan(FIRST_DAY + DAYS - 1, FIRST_DAY + DAYS - 1);
+        // Everything but the first day, and everything but the last.
+        assertMatchesScan(FIRST_DAY + 1, Integer.MAX_VALUE);
+        assertMatchesScan(Integer.MIN_VALUE, FIRST_DAY + DAYS - 2);
+    }
+
+    @Test
+    void emptyPeriodsAreZero() {
+        assertMatchesScan(FIRST_DAY + DAYS, Integer.MAX_VALUE);
+        assertMatchesScan(Integer.MIN_VALUE, FIRST_DAY - 1);
+        assertMatchesScan(FIRST_DAY + 50, FIRST_DAY + 40);
+        TrialBalance tb = engine.trialBalance(FIRST_DAY + DAYS, Integer.MAX_VALUE);
+        assertEquals(0, tb.totalDebits());
+        assertEquals(0, tb.totalCredits());
+    }
+
+    @Test
+    void periodToAsOfDayMatchesBalancesAsOf() {
+        for (int asOf : new int[]{FIRST_DAY - 1, FIRST_DAY, FIRST_DAY + 31, FIRST_DAY + 182, FIRST_DAY + DAYS - 1}) {
+            // Inclusive of the as-of day itself, like balanceAsOf.
+            TrialBalance tb = engine.trialBalance(Integer.MIN_VALUE, asOf);
+            long[] balances = engine.balancesAsOf(asOf);
+            for (int id = 0; id < engine.accountCount(); id++) {
+                Account a = engine.account(id);
+                long movement = Money.subtract(balances[id], a.getOpeningBalance());
+                assertEquals(movement, tb.getNet(id, a.getType()), a.getName() + " as of " + Dates.format(asOf));
+            }
+        }
+    }
+
+    @Test
+    void accountsWithNoPostingsAreZero() {
+        TrialBalance tb = engine.trialBalance(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(engine.accountCount(), tb.getAccountCount());
+        assertEquals(0, tb.getDebits(unusedId));
+        assertEquals(0, tb.getCredits(unusedId));
+        assertEquals(0, tb.getDebits(engine.account("Land").getId()));
+        assertEquals(0, tb.getCredits(engine.account("Land").getId()));
+    }
+
+    private static void assertMatchesScan(int fromDay, int toDay) {
+        TrialBalance tb = engine.trialBalance(fromDay, toDay);
+        long[] debits = new long[engine.accountCount()];
+        long[] credits = new long[engine.accountCount()];
+        for (int seq = 0; seq < engine.size(); seq++) {
+            int day = engine.epochDay(seq);
+            if (day < fromDay || day > toDay) continue;
+            debits[engine.debitId(seq)] += engine.amount(seq);
+            credits[engine.creditId(seq)] += engine.amount(seq);
+        }
+        String period = fromDay + ".." + toDay;
+        assertEquals(debits.length, tb.getAccountCount(), period);
+        long totalDebits = 0, totalCredits = 0;
+        for (int id = 0; id < debits.length; id++) {
+            assertEquals(debits[id], tb.getDebits(id), period + " debits of " + engine.account(id).getName());
+            assertEquals(credits[id], tb.getCredits(id), period + " credits of " + engine.account(id).getName());
+            totalDebits += debits[id];
+            totalCredits += credits[id];
+        }
+        assertEquals(totalDebits, tb.totalDebits(), period);
+        assertEquals(totalCredits, tb.totalCredits(), period);
+        assertEquals(tb.totalDebits(), tb.totalCredits(), period);
+    }
+}
@@ -0,0 +1,66 @@
+package accounting.bench;
+
+import accounting.AccountType;
+import accounting.LedgerEngine;
+import accounting.TrialBalance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+BalanceSheetBenchmark.java
+ - Report totals over a book of size postings: the Balance Sheet's two totals from current balances
+   and as of a day mid-way through the book, and a one-year trial balance
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BalanceSheetBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private LedgerEngine engine;
+    private final int midDay = Books.FIRST_DAY + Books.DAYS / 2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Books.create(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public long currentTotals() {
+        return engine.totalBalance(AccountType.ASSET)
+                - engine.totalBalance(AccountType.LIABILITY, AccountType.OWNERS_EQUITY);
+    }
+
+    @Benchmark
+    public long asOfTotals() {
+        return engine.totalBalanceAsOf(midDay, AccountType.ASSET)
+                - engine.totalBalanceAsOf(midDay, AccountType.LIABILITY, AccountType.OWNERS_EQUITY);
+    }
+
+    @Benchmark
+    public TrialBalance trialBalanceOneYear() {
+        return engine.trialBalance(Books.LAST_DAY - 364, Books.LAST_DAY);
+    }
+}
@@ -0,0 +1,53 @@
+package accounting.bench;
+
+import accounting.BookGenerator;
+import accounting.Dates;
+import accounting.LedgerEngine;
+
+import java.util.Random;
+
+/*
+Books.java
+ - In-memory books of a given size for the benchmarks, the same for every run of a given size:
+   ten years of BookGenerator postings, streamed straight into the engine
+ - request() makes further postings as a user would type them, for the posting benchmarks
+*/
+final class Books {
+    static final int FIRST_DAY = Dates.parse("2015-01-01");
+    static final int DAYS = 3650;
+    static final int LAST_DAY = FIRST_DAY + DAYS - 1;
+
+    private static final String[][] PAIRS = {
+        {"Cash", "Service Revenue"},
+        {"Accounts Receivable", "Sales Revenue"},
+        {"Cash", "Accounts Receivable"},
+        {"Rent Expense", "Cash"},
+        {"Salaries Expense", "Cash"},
+        {"Utilities Expense", "Cash"},
+        {"Supplies", "Accounts Payable"},
+        {"Accounts Payable", "Cash"},
+        {"Advertising Expense", "Cash"},
+        {"Cash", "Owner's Capital"}
+    };
+    private static final String[] WORDS = {
+        "Office rent", "Payroll", "Invoice", "Electricity", "Paper and toner", "Supplier payment",
+        "Online ads", "Consulting", "Customer receipt", "Capital injection", "Water bill", "Retainer"
+    };
+
+    private Books() {}
+
+    static LedgerEngine create(int count) {
+        LedgerEngine engine = LedgerEngine.inMemory();
+        BookGenerator generator = new BookGenerator(42, FIRST_DAY, DAYS);
+        engine.postAll(sink -> generator.generate(count, sink)).join();
+        return engine;
+    }
+
+    static LedgerEngine.PostingRequest request(Random random, int day, int i) {
+        String[] pair = PAIRS[random.nextInt(PAIRS.length)];
+        String description = WORDS[random.nextInt(WORDS.length)] + " #" + (i % 997);
+        long cents = 100 + random.nextInt(500_000);
+        String amount = cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+        return new LedgerEngine.PostingRequest(Dates.format(day), description, pair[0], pair[1], amount);
+    }
+}
@@ -0,0 +1,79 @@
+package accounting.bench;
+
+import accounting.LedgerEngine;
+import accounting.PostingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ConcurrentPostingBenchmark.java
+ - Postings per second from several threads at once into one book: each on its own thread through
+   postNow(), against the same threads queueing on the writer through post()
+ - Seven in ten postings touch Cash, so the hot account's stripe is contended throughout; all are
+   dated the day after the book, as a day's postings from clerks and feeds would be
+ - Four threads by default; -t 1, -t 2, ... -t max shows how the rate scales with cores
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Threads(4)
+public class ConcurrentPostingBenchmark {
+    private static final int REQUESTS = 1024;
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    private LedgerEngine engine;
+
+    @State(Scope.Thread)
+    public static class Clerk {
+        private final LedgerEngine.PostingRequest[] requests = new LedgerEngine.PostingRequest[REQUESTS];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(Thread.currentThread().getId());
+            for (int i = 0; i < REQUESTS; i++) requests[i] = Books.request(random, Books.LAST_DAY + 1, i);
+        }
+
+        LedgerEngine.PostingRequest next() { return requests[next++ & (REQUESTS - 1)]; }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Books.create(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public int postNow(Clerk clerk) throws PostingException {
+        return engine.postNow(clerk.next());
+    }
+
+    @Benchmark
+    public int postThroughWriter(Clerk clerk) {
+        return engine.post(clerk.next()).join();
+    }
+}
@@ -0,0 +1,86 @@
+package accounting.bench;
+
+import accounting.Account;
+import accounting.LedgerEngine;
+import accounting.MoneyCellRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JTable;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+LedgerBenchmark.java
+ - General Ledger work for the busiest account (Cash) of a book of size postings: fetching the
+   last month of its ledger with running balances, and painting the newest screenful of that month
+ - Painting goes into an offscreen image, so it runs headless
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class LedgerBenchmark {
+    private static final int SCREEN_ROWS = 40;
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private LedgerEngine engine;
+    private Account cash;
+    private final MoneyCellRenderer renderer = new MoneyCellRenderer(false);
+    private final JTable table = new JTable(1, 1);
+    private final BufferedImage image = new BufferedImage(120, 20, BufferedImage.TYPE_INT_RGB);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Books.create(size);
+        cash = engine.account("Cash");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public List<LedgerEngine.LedgerLine> lastMonth() {
+        return engine.ledger(cash, Books.LAST_DAY - 30, Books.LAST_DAY);
+    }
+
+    @Benchmark
+    public int paintLastScreen() {
+        List<LedgerEngine.LedgerLine> lines = lastMonth();
+        Graphics2D g = image.createGraphics();
+        int painted = 0;
+        for (int i = Math.max(0, lines.size() - SCREEN_ROWS); i < lines.size(); i++) {
+            LedgerEngine.LedgerLine line = lines.get(i);
+            painted += paint(g, line.getAmount(), i) + paint(g, line.getBalance(), i);
+        }
+        g.dispose();
+        return painted;
+    }
+
+    private int paint(Graphics2D g, long cents, int row) {
+        Component c = renderer.getTableCellRendererComponent(table, cents, false, false, row, 0);
+        c.setBounds(0, 0, image.getWidth(), image.getHeight());
+        c.paint(g);
+        return 1;
+    }
+}
@@ -0,0 +1,95 @@
+package accounting.bench;
+
+import accounting.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+MoneyBenchmark.java
+ - Long cents (Money) against the BigDecimal and double formatting they replaced: summing,
+   formatting and parsing amounts the size of ordinary postings
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final int N = 1024;
+
+    private final long[] cents = new long[N];
+    private final BigDecimal[] decimals = new BigDecimal[N];
+    private final String[] texts = new String[N];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < N; i++) {
+            cents[i] = 100 + random.nextInt(100_000_000);
+            decimals[i] = BigDecimal.valueOf(cents[i], 2);
+            texts[i] = Money.format(cents[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public long sumCents() {
+        long total = 0;
+        for (long c : cents) total = Money.add(total, c);
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal d : decimals) total = total.add(d);
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void formatCents(Blackhole bh) {
+        for (long c : cents) bh.consume(Money.format(c));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void formatBigDecimal(Blackhole bh) {
+        for (BigDecimal d : decimals) bh.consume(d.setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void formatDouble(Blackhole bh) {
+        for (long c : cents) bh.consume(String.format("%.2f", c / 100.0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void parseCents(Blackhole bh) {
+        for (String s : texts) bh.consume(Money.parse(s));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void parseBigDecimal(Blackhole bh) {
+        for (String s : texts) bh.consume(new BigDecimal(s));
+    }
+}
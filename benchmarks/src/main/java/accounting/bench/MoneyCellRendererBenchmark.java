@@ -0,0 +1,79 @@
+package accounting.bench;
+
+import accounting.MoneyCellRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+MoneyCellRendererBenchmark.java
+ - Painting a screenful of amount cells: MoneyCellRenderer drawing Long cents from its char buffer,
+   against a DefaultTableCellRenderer given String.format("%,.2f") text as the tables used to be
+ - Cells are painted into an offscreen image, so it runs headless
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MoneyCellRendererBenchmark {
+    private static final int CELLS = 40;
+
+    private final long[] cents = new long[CELLS];
+    private final JTable table = new JTable(CELLS, 1);
+    private final MoneyCellRenderer moneyRenderer = new MoneyCellRenderer(true);
+    private final DefaultTableCellRenderer stringRenderer = new DefaultTableCellRenderer();
+    private final BufferedImage image = new BufferedImage(120, 20, BufferedImage.TYPE_INT_RGB);
+    private Graphics2D g;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < CELLS; i++) cents[i] = random.nextInt(1_000_000_000);
+        stringRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        g = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void moneyCellRenderer() {
+        for (int i = 0; i < CELLS; i++) paint(moneyRenderer, cents[i], i);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void stringFormat() {
+        for (int i = 0; i < CELLS; i++) paint(stringRenderer, String.format("%,.2f", cents[i] / 100.0), i);
+    }
+
+    private void paint(TableCellRenderer renderer, Object value, int row) {
+        Component c = renderer.getTableCellRendererComponent(table, value, false, false, row, 0);
+        c.setBounds(0, 0, image.getWidth(), image.getHeight());
+        c.paint(g);
+    }
+}
@@ -0,0 +1,70 @@
+package accounting.bench;
+
+import accounting.LedgerEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+PostingBenchmark.java
+ - Postings per second into a book already holding size postings: one at a time through post()
+   and a thousand at a time through postBatch(), both dated after the book's last day
+ - The book grows by what each iteration posts, a small fraction of it at the larger sizes
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PostingBenchmark {
+    private static final int BATCH = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private LedgerEngine engine;
+    private List<LedgerEngine.PostingRequest> batch;
+    private LedgerEngine.PostingRequest single;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Books.create(size);
+        Random random = new Random(7);
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) batch.add(Books.request(random, Books.LAST_DAY + 1, size + i));
+        single = Books.request(random, Books.LAST_DAY + 1, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public int post() {
+        return engine.post(single).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long postBatch() {
+        return engine.postBatch(batch).join().getPosted();
+    }
+}
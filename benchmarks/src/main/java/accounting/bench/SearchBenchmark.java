@@ -0,0 +1,91 @@
+package accounting.bench;
+
+import accounting.Dates;
+import accounting.LedgerEngine;
+import accounting.SubstringIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+SearchBenchmark.java
+ - Transactions search over a book of size postings, the way the Transactions tab runs it:
+   index candidates, each checked against the full query, against the plain scan it replaced
+ - Queries: a word in every rent posting and two account names, one invoice number, and a month
+ - The n-gram index costs a few hundred bytes per posting, so 10M postings needs a larger heap than
+   the other benchmarks: -p size=10000000 -jvmArgsAppend -Xmx8g on a machine that has it
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+    @Param({"10000", "1000000"})
+    int size;
+
+    @Param({"rent", "inv-1234", "2019-07"})
+    String query;
+
+    private LedgerEngine engine;
+    private SubstringIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Books.create(size);
+        index = new SubstringIndex();
+        for (int seq = 0; seq < engine.size(); seq++) {
+            index.add(seq, Dates.format(engine.epochDay(seq)), engine.description(seq),
+                    name(engine.debitId(seq)), name(engine.creditId(seq)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public int indexed() {
+        int[] ids = index.candidates(query);
+        if (query.length() <= 3) return ids.length;
+        int found = 0;
+        for (int seq : ids) {
+            if (matches(seq)) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int scan() {
+        int found = 0;
+        for (int seq = 0; seq < engine.size(); seq++) {
+            if (matches(seq)) found++;
+        }
+        return found;
+    }
+
+    private boolean matches(int seq) {
+        return Dates.format(engine.epochDay(seq)).contains(query)
+                || engine.description(seq).toLowerCase().contains(query)
+                || name(engine.debitId(seq)).toLowerCase().contains(query)
+                || name(engine.creditId(seq)).toLowerCase().contains(query);
+    }
+
+    private String name(int accountId) {
+        return engine.account(accountId).getName();
+    }
+}
@@ -0,0 +1,101 @@
+package accounting.bench;
+
+import accounting.Dates;
+import accounting.LedgerEngine;
+import accounting.TransactionsTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import java.util.concurrent.TimeUnit;
+
+/*
+TableModelBenchmark.java
+ - Refreshing the Transactions table over a book of size postings, both ways the frames do it:
+   AccountingAppPractice rebuilds a DefaultTableModel row by row, AccountingApp fires a change on
+   accounting.TransactionsTableModel, which reads rows off the book's date index, and only the rows
+   on screen are then read
+ - Each refresh ends with the cells of one screenful read, as the table would to paint it
+ - 10M eager rows do not fit the fork's heap, which is the reason AccountingApp reads lazily;
+   run -p eagerSize=10000000 -jvmArgsAppend -Xmx12g to measure it anyway
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class TableModelBenchmark {
+    private static final int SCREEN_ROWS = 40;
+
+    @State(Scope.Benchmark)
+    public static class Eager {
+        @Param({"10000", "1000000"})
+        int eagerSize;
+
+        LedgerEngine engine;
+        final DefaultTableModel model = new DefaultTableModel(
+                new String[]{"Date", "Description", "Debit Account", "Credit Account", "Amount"}, 0);
+
+        @Setup(Level.Trial)
+        public void setUp() { engine = Books.create(eagerSize); }
+
+        @TearDown(Level.Trial)
+        public void tearDown() { engine.close(); }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lazy {
+        @Param({"10000", "1000000", "10000000"})
+        int lazySize;
+
+        LedgerEngine engine;
+        TransactionsTableModel model;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engine = Books.create(lazySize);
+            model = new TransactionsTableModel(engine);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() { engine.close(); }
+    }
+
+    @Benchmark
+    public void eagerRebuild(Eager s, Blackhole bh) {
+        LedgerEngine engine = s.engine;
+        s.model.setRowCount(0);
+        for (int seq = engine.size() - 1; seq >= 0; seq--) {
+            s.model.addRow(new Object[]{Dates.format(engine.epochDay(seq)), engine.description(seq),
+                    engine.account(engine.debitId(seq)).getName(), engine.account(engine.creditId(seq)).getName(),
+                    engine.amount(seq)});
+        }
+        readScreen(s.model, bh);
+    }
+
+    @Benchmark
+    public void lazyRefresh(Lazy s, Blackhole bh) {
+        // What AccountingApp does to refresh the unfiltered table after a large batch.
+        s.model.startQuery("");
+        readScreen(s.model, bh);
+    }
+
+    private static void readScreen(TableModel model, Blackhole bh) {
+        for (int r = 0; r < Math.min(SCREEN_ROWS, model.getRowCount()); r++) {
+            for (int c = 0; c < model.getColumnCount(); c++) bh.consume(model.getValueAt(r, c));
+        }
+    }
+}
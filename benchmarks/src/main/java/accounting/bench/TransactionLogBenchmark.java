@@ -0,0 +1,69 @@
+package accounting.bench;
+
+import accounting.TransactionLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+TransactionLogBenchmark.java
+ - Sorted insert into a date-ordered log already holding size entries spread over ten years:
+   a posting dated on the last day (the usual append), one day back, one month back, and on the
+   very first day, which lands before every entry in the log
+ - Each iteration starts from a freshly built log and times BATCH inserts into it; the score is
+   the time for the whole batch
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, batchSize = TransactionLogBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = TransactionLogBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionLogBenchmark {
+    static final int BATCH = 10_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private TransactionLog log;
+    // Rows keep counting up past the ones set up, as new postings' rows would.
+    private int nextSeq;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        log = new TransactionLog();
+        for (int i = 0; i < size; i++) log.insert(Books.FIRST_DAY + (int) ((long) i * Books.DAYS / size), i);
+        nextSeq = size;
+    }
+
+    @Benchmark
+    public int inOrder() {
+        return log.insert(Books.LAST_DAY, nextSeq++);
+    }
+
+    @Benchmark
+    public int oneDayBack() {
+        return log.insert(Books.LAST_DAY - 1, nextSeq++);
+    }
+
+    @Benchmark
+    public int oneMonthBack() {
+        return log.insert(Books.LAST_DAY - 30, nextSeq++);
+    }
+
+    @Benchmark
+    public int firstDay() {
+        return log.insert(Books.FIRST_DAY, nextSeq++);
+    }
+}